@@ -0,0 +1,207 @@
+package application;
+
+import modules.FileTable;
+import modules.Word;
+import modules.WordLocation;
+import utilities.AVLTree;
+import utilities.BSTree;
+import utilities.Iterator;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An append-only log of the changes to the repository since it was last
+ * compacted. Every run that reads input files appends one record holding
+ * only the words of those files, so the cost of saving grows with the new
+ * input rather than with the whole repository. Removing files appends a
+ * record naming them, which leaves the repository as it is; the removal
+ * applies to the records before it and to the repository, whose words drop
+ * those files as they are read.
+ *
+ * Each record is an int byte length followed either by the words in the
+ * repository format of {@link RepositoryFile} or by REMOVAL_MAGIC and the
+ * names of the removed files. A record cut short by an interrupted append
+ * is ignored when the log is read, and cut off before the next record is
+ * appended. Replaying a record twice is harmless, since a word ignores a
+ * line it already holds for a file and a file can only be removed once.
+ */
+public class DeltaLog {
+
+    /**
+     * Starts a record of removed files, in place of the repository format's magic number.
+     */
+    private static final int REMOVAL_MAGIC = 0x5754524D;
+
+    private DeltaLog() {
+    }
+
+    /**
+     * Appends the words of a tree to the log as one record and forces it to
+     * disk. A record cut short by an earlier interrupted append is cut off
+     * first, so that the new record follows the last complete one.
+     * @param wordTree The words to append.
+     * @param file     The log file, created if it does not exist.
+     * @throws IOException If there is an I/O issue.
+     */
+    public static void append(BSTree<Word> wordTree, File file) throws IOException {
+        if (wordTree.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        RepositoryFile.write(wordTree, record);
+        appendRecord(record, file);
+    }
+
+    /**
+     * Appends a record removing files from the repository and forces it to
+     * disk. Their locations are dropped from the words logged before it and
+     * from the repository when the log is read.
+     * @param fileNames The names recorded as the locations of the files' words.
+     * @param file      The log file, created if it does not exist.
+     * @throws IOException If there is an I/O issue.
+     */
+    public static void appendRemoval(List<String> fileNames, File file) throws IOException {
+        if (fileNames.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(record);
+        out.writeInt(REMOVAL_MAGIC);
+        out.writeInt(fileNames.size());
+        for (String fileName : fileNames) {
+            out.writeUTF(fileName);
+        }
+        appendRecord(record, file);
+    }
+
+    /**
+     * Appends one record after the last complete record of the log and forces it to disk.
+     */
+    private static void appendRecord(ByteArrayOutputStream record, File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = completeLength(channel);
+            channel.truncate(end);
+            channel.position(end);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(record.size());
+            record.writeTo(out);
+            out.flush();
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Finds the end of the last complete record of the log.
+     * @param channel The log.
+     * @return The length of the log up to and including its last complete record.
+     * @throws IOException If there is an I/O issue.
+     */
+    private static long completeLength(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        long position = 0;
+        while (size - position >= Integer.BYTES) {
+            header.clear();
+            while (header.hasRemaining()) {
+                if (channel.read(header, position + header.position()) < 0) {
+                    return position;
+                }
+            }
+            int length = header.getInt(0);
+            if (length < 0 || length > size - position - Integer.BYTES) {
+                break;
+            }
+            position += Integer.BYTES + length;
+        }
+        return position;
+    }
+
+    /**
+     * Reads every complete record of the log into one tree.
+     * @param file The log file.
+     * @return The words of all the records, or an empty tree if there is no log.
+     * @throws IOException If there is an I/O issue or a record is not in the repository format.
+     */
+    public static BSTree<Word> read(File file) throws IOException {
+        return read(file, new HashSet<>());
+    }
+
+    /**
+     * Reads every complete record of the log into one tree. A record removing
+     * files drops their locations from the words of the records before it,
+     * visiting only the words logged for those files, and adds their numbers
+     * to a set, for the caller to drop them from the repository as well.
+     * @param file         The log file.
+     * @param removedFiles Receives the numbers of the file names removed by the log.
+     * @return The words of all the records, or an empty tree if there is no log.
+     * @throws IOException If there is an I/O issue or a record is not in the repository format.
+     */
+    public static BSTree<Word> read(File file, Set<Integer> removedFiles) throws IOException {
+        BSTree<Word> wordTree = new AVLTree<>();
+        if (!file.exists()) {
+            return wordTree;
+        }
+        Map<Integer, List<Word>> fileWords = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            byte[] record;
+            while ((record = readRecord(in)) != null) {
+                DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(record));
+                if (record.length >= Integer.BYTES && ByteBuffer.wrap(record).getInt() == REMOVAL_MAGIC) {
+                    recordIn.readInt();
+                    for (int i = recordIn.readInt(); i > 0; i--) {
+                        String fileName = recordIn.readUTF();
+                        int fileId = FileTable.idOf(fileName);
+                        removedFiles.add(fileId);
+                        WordIndexer.unindexFile(wordTree, fileName, fileWords.getOrDefault(fileId, List.of()));
+                        fileWords.remove(fileId);
+                    }
+                    continue;
+                }
+                Iterator<Word> iterator = RepositoryFile.read(recordIn).inorderIterator();
+                while (iterator.hasNext()) {
+                    Word word = iterator.next();
+                    Word existing = wordTree.computeIfAbsent(word, Word::compareTo, key -> word);
+                    if (existing != word) {
+                        existing.merge(word);
+                    }
+                    for (WordLocation location : word.getWordLocations()) {
+                        fileWords.computeIfAbsent(location.getFileId(), key -> new ArrayList<>()).add(existing);
+                    }
+                }
+            }
+        }
+        return wordTree;
+    }
+
+    /**
+     * Reads the next record of the log.
+     * @param in The log, positioned at the start of a record.
+     * @return The bytes of the record, or null at the end of the log or at a
+     *         record cut short by an interrupted append.
+     * @throws IOException If there is an I/O issue.
+     */
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length < 0 || length > in.available()) {
+                return null;
+            }
+            byte[] record = new byte[length];
+            in.readFully(record);
+            return record;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+}
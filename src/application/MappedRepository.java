@@ -0,0 +1,417 @@
+package application;
+
+import modules.Word;
+import utilities.Iterator;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only view of a repository file that is memory-mapped rather than
+ * loaded. Only the header and the file table are read when it is opened;
+ * words are found by binary search over the offset index at the end of the
+ * file and decoded when they are asked for, so opening takes the same time
+ * for any size of repository and the heap holds only the words in use.
+ *
+ * A mapping cannot be larger than 2 GB, so the file is mapped in segments
+ * and read at long offsets; an entry or an index slot may run from one
+ * segment into the next.
+ *
+ * @see RepositoryFile
+ */
+public class MappedRepository {
+
+    /**
+     * The size of the segments a repository is mapped in, unless another is asked for.
+     */
+    public static final int SEGMENT_SIZE = 1 << 30;
+
+    private final MappedByteBuffer[] segments;
+    private final int segmentSize;
+    private final long length;
+    private final int[] fileTable;
+    private final int size;
+    private final long firstEntry;
+    private final long indexOffset;
+
+    private MappedRepository(MappedByteBuffer[] segments, int segmentSize, long length, int[] fileTable,
+                             int size, long firstEntry) {
+        this.segments = segments;
+        this.segmentSize = segmentSize;
+        this.length = length;
+        this.fileTable = fileTable;
+        this.size = size;
+        this.firstEntry = firstEntry;
+        this.indexOffset = longAt(length - 8);
+    }
+
+    /**
+     * Maps a repository file into memory.
+     * @param file The repository file.
+     * @return The mapped repository, or null if the file was written in a
+     *         format without an offset index and has to be loaded instead.
+     * @throws IOException If there is an I/O issue or the file is not a repository.
+     */
+    public static MappedRepository open(File file) throws IOException {
+        return open(file, SEGMENT_SIZE);
+    }
+
+    /**
+     * Maps a repository file into memory in segments of a given size.
+     * @param file        The repository file.
+     * @param segmentSize The most bytes mapped by one segment.
+     * @return The mapped repository, or null if the file was written in a
+     *         format without an offset index and has to be loaded instead.
+     * @throws IOException If there is an I/O issue or the file is not a repository.
+     * @throws IllegalArgumentException If the segment size is not positive.
+     */
+    public static MappedRepository open(File file, int segmentSize) throws IOException {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("The segment size must be positive.");
+        }
+        MappedByteBuffer[] segments;
+        long length;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            length = channel.size();
+            if (length < 8) {
+                return null;
+            }
+            segments = new MappedByteBuffer[(int) ((length - 1) / segmentSize + 1)];
+            for (int i = 0; i < segments.length; i++) {
+                long position = (long) i * segmentSize;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(segmentSize, length - position));
+            }
+        }
+        SegmentStream header = new SegmentStream(segments, segmentSize, length, 0);
+        DataInputStream in = new DataInputStream(header);
+        if (in.readInt() != RepositoryFile.MAGIC || in.readInt() < 2) {
+            return null;
+        }
+        int[] fileTable = RepositoryFile.readFileTable(in);
+        int size = RepositoryFile.readVarInt(in);
+        return new MappedRepository(segments, segmentSize, length, fileTable, size, header.position);
+    }
+
+    /**
+     * Returns the number of words in the repository.
+     * @return The number of words.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds a word by binary search over the offset index and decodes it.
+     * @param key The word to find.
+     * @return The word with all of its locations, or null if it is not in the repository.
+     * @throws UncheckedIOException If the entry is damaged.
+     */
+    public Word lookup(String key) {
+        int index = indexOf(key);
+        return index < 0 ? null : get(index);
+    }
+
+    /**
+     * Checks whether a word is in the repository without decoding it.
+     * @param key The word to find.
+     * @return true if the word is in the repository.
+     */
+    public boolean contains(String key) {
+        return indexOf(key) >= 0;
+    }
+
+    private int indexOf(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int comparison = compareKey(entryOffset(mid), keyBytes);
+            if (comparison == 0) {
+                return mid;
+            }
+            if (comparison < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes the word at a position in sorted order.
+     * @param index The position of the word, from 0 to size() - 1.
+     * @return The word with all of its locations.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     * @throws UncheckedIOException If the entry is damaged.
+     */
+    public Word get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No word at index " + index + ".");
+        }
+        try {
+            return RepositoryFile.readWord(entryStream(entryOffset(index)), fileTable);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns an iterator decoding the words one at a time in sorted order.
+     * The entries are read sequentially, without going through the index.
+     * @return An iterator over the words of the repository.
+     */
+    public Iterator<Word> iterator() {
+        return iterator(0);
+    }
+
+    /**
+     * Returns an iterator decoding the words in sorted order, starting at the
+     * first word not less than a key. The start is found by binary search and
+     * the entries after it are read sequentially.
+     * @param from The key to start at.
+     * @return An iterator over the words from the key onwards.
+     */
+    public Iterator<Word> iterator(String from) {
+        return iterator(lowerBound(from));
+    }
+
+    /**
+     * Returns an iterator decoding the words in sorted order, starting at a
+     * position. The start is found through the index and the entries after
+     * it are read sequentially.
+     * @param start The position of the first word, from 0 to size().
+     * @return An iterator over the words from the position onwards.
+     * @throws IndexOutOfBoundsException If the position is out of range.
+     */
+    public Iterator<Word> iterator(int start) {
+        if (start < 0 || start > size) {
+            throw new IndexOutOfBoundsException("No word at index " + start + ".");
+        }
+        DataInputStream in = entryStream(start > 0 && start < size ? entryOffset(start) : firstEntry);
+        return new Iterator<Word>() {
+            private int next = start;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Word next() throws NoSuchElementException {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more elements in iteration.");
+                }
+                next++;
+                try {
+                    return RepositoryFile.readWord(in, fileTable);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Finds the position of the first word not less than a key.
+     */
+    private int lowerBound(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKey(entryOffset(mid), keyBytes) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long entryOffset(int index) {
+        return longAt(indexOffset + 8L * index);
+    }
+
+    /**
+     * Reads the long at an offset of the file, which may span two segments.
+     */
+    private long longAt(long offset) {
+        ByteBuffer segment = segments[(int) (offset / segmentSize)];
+        int position = (int) (offset % segmentSize);
+        if (segment.limit() - position >= Long.BYTES) {
+            return segment.getLong(position);
+        }
+        byte[] bytes = new byte[Long.BYTES];
+        copy(offset, bytes);
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+
+    /**
+     * Copies the bytes of the file from an offset into an array, as far as
+     * the array or the file reaches.
+     * @return The number of bytes copied.
+     */
+    private int copy(long offset, byte[] bytes) {
+        int copied = 0;
+        while (copied < bytes.length && offset < length) {
+            ByteBuffer segment = segments[(int) (offset / segmentSize)];
+            int position = (int) (offset % segmentSize);
+            int count = Math.min(bytes.length - copied, segment.limit() - position);
+            segment.get(position, bytes, copied, count);
+            copied += count;
+            offset += count;
+        }
+        return copied;
+    }
+
+    /**
+     * Compares the key of the entry at an offset with the given key bytes in
+     * the order of the words in the file. The comparison reads no more than
+     * the length of the entry's key and as many bytes as the given key, so
+     * an entry near the end of a segment is copied out that far first.
+     */
+    private int compareKey(long offset, byte[] keyBytes) {
+        ByteBuffer segment = segments[(int) (offset / segmentSize)];
+        int position = (int) (offset % segmentSize);
+        int needed = 5 + keyBytes.length;
+        if (segment.limit() - position >= needed) {
+            return compareKey(segment, position, keyBytes);
+        }
+        byte[] bytes = new byte[needed];
+        copy(offset, bytes);
+        return compareKey(ByteBuffer.wrap(bytes), 0, keyBytes);
+    }
+
+    /**
+     * Compares the key of the entry at a position of a buffer with the given
+     * key bytes, for any buffer holding entries in the repository format.
+     * The words are sorted as Strings, so the bytes are ranked to match.
+     */
+    static int compareKey(ByteBuffer buffer, int position, byte[] keyBytes) {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = buffer.get(position++);
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        int common = Math.min(length, keyBytes.length);
+        for (int i = 0; i < common; i++) {
+            int comparison = Integer.compare(stringOrder(buffer.get(position + i)), stringOrder(keyBytes[i]));
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, keyBytes.length);
+    }
+
+    /**
+     * Ranks a UTF-8 byte so that bytes compare in the order of UTF-16 code
+     * units rather than code points: the lead bytes 0xEE and 0xEF, of U+E000
+     * to U+FFFF, rank above 0xF0 to 0xF4, which start the supplementary
+     * characters that String orders first by their surrogates.
+     */
+    private static int stringOrder(byte b) {
+        int unsigned = b & 0xFF;
+        return unsigned == 0xEE || unsigned == 0xEF ? unsigned + 0x10 : unsigned;
+    }
+
+    /**
+     * Opens a stream over the mapped file starting at an offset, so entries
+     * are decoded by the same code that loads a whole repository.
+     */
+    private DataInputStream entryStream(long offset) {
+        return new DataInputStream(new SegmentStream(segments, segmentSize, length, offset));
+    }
+
+    /**
+     * Reads the mapped file from an offset onwards, moving from one segment
+     * to the next, and counts the bytes it has read.
+     */
+    private static final class SegmentStream extends InputStream {
+        private final ByteBuffer[] segments;
+        private final int segmentSize;
+        private final long length;
+        private long position;
+
+        private SegmentStream(ByteBuffer[] segments, int segmentSize, long length, long position) {
+            this.segments = segments;
+            this.segmentSize = segmentSize;
+            this.length = length;
+            this.position = position;
+        }
+
+        @Override
+        public int read() {
+            if (position >= length) {
+                return -1;
+            }
+            int b = segments[(int) (position / segmentSize)].get((int) (position % segmentSize)) & 0xFF;
+            position++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= length) {
+                return -1;
+            }
+            ByteBuffer segment = segments[(int) (position / segmentSize)];
+            int start = (int) (position % segmentSize);
+            len = Math.min(len, segment.limit() - start);
+            segment.get(start, b, off, len);
+            position += len;
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, length - position);
+        }
+    }
+
+    /**
+     * Opens a stream over a buffer starting at an offset, for any buffer
+     * holding entries in the repository format.
+     */
+    static DataInputStream entryStream(ByteBuffer buffer, long offset) {
+        ByteBuffer view = buffer.duplicate();
+        view.position((int) offset);
+        return new DataInputStream(new InputStream() {
+            @Override
+            public int read() {
+                return view.hasRemaining() ? view.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+                if (!view.hasRemaining()) {
+                    return -1;
+                }
+                len = Math.min(len, view.remaining());
+                view.get(b, off, len);
+                return len;
+            }
+
+            @Override
+            public int available() {
+                return view.remaining();
+            }
+        });
+    }
+}
@@ -0,0 +1,238 @@
+package application;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A Tokenizer that scans the bytes of a file instead of decoding it into
+ * characters. Words are runs of ASCII letters, which are single bytes in
+ * UTF-8, and every byte of a multi-byte character is above 0x7F, so the
+ * words and the line breaks can be found in the encoded text directly.
+ * Large files are memory-mapped, in windows for files beyond the reach of
+ * one mapping, and copied out of the mapping in slices that the scan loop
+ * reads as a plain array. Smaller files are read through one large buffer,
+ * which avoids the cost of setting up a mapping and does not leave one
+ * behind for every file of a directory until the mappings are collected.
+ *
+ * The words and line numbers are the same as those of WordTokenizer: lines
+ * end at the same characters, including the UTF-8 encodings of U+0085,
+ * U+2028 and U+2029.
+ */
+public class MappedTokenizer implements Tokenizer {
+
+    /**
+     * Files of at least this many bytes are memory-mapped.
+     */
+    private static final long MAP_THRESHOLD = 1 << 20;
+
+    /**
+     * The most bytes of a file mapped at once; a larger file is mapped in
+     * windows of this size.
+     */
+    private static final long WINDOW_SIZE = 1 << 30;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    @Override
+    public void tokenize(File file, TokenHandler handler) throws IOException {
+        ByteScanner scanner = new ByteScanner(handler);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD) {
+                for (long position = 0; position < size; position += WINDOW_SIZE) {
+                    scanner.scan(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position)));
+                }
+            } else {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                while (channel.read(buffer) != -1) {
+                    scanner.scan(buffer.array(), 0, buffer.position());
+                    buffer.clear();
+                }
+            }
+        }
+        scanner.finish();
+    }
+
+    /**
+     * Scans UTF-8 text held in a buffer and passes each of its words to a
+     * handler. The buffer is read from its position to its limit, which are
+     * left unchanged.
+     * @param bytes   The text to scan.
+     * @param handler Receives each word along with its line number.
+     */
+    public void tokenize(ByteBuffer bytes, TokenHandler handler) {
+        ByteScanner scanner = new ByteScanner(handler);
+        scanner.scan(bytes);
+        scanner.finish();
+    }
+
+    /**
+     * Finds the words of a text handed over in consecutive buffers. A word
+     * inside a buffer is passed to the handler as a view of its bytes; only a
+     * word that runs past the end of a buffer is copied, so that it can be
+     * finished in the next one. The bytes of a line break read so far carry
+     * over in the same way, so a buffer may end anywhere.
+     */
+    private static final class ByteScanner {
+        private static final int NO_BREAK = 0;
+        private static final int AFTER_C2 = 1;
+        private static final int AFTER_E2 = 2;
+        private static final int AFTER_E2_80 = 3;
+
+        private final TokenHandler handler;
+        private final ByteWord view = new ByteWord();
+        private final WordTokenizer.TokenBuffer carried = new WordTokenizer.TokenBuffer();
+        private int lineNumber = 1;
+        private boolean afterCarriageReturn;
+
+        /**
+         * How much of a multi-byte line break has been read.
+         */
+        private int partialBreak = NO_BREAK;
+
+        private ByteScanner(TokenHandler handler) {
+            this.handler = handler;
+        }
+
+        /**
+         * Scans a buffer from its position to its limit. A buffer without an
+         * accessible array, such as a mapped one, is copied out in slices.
+         */
+        private void scan(ByteBuffer bytes) {
+            if (bytes.hasArray()) {
+                scan(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.arrayOffset() + bytes.limit());
+                return;
+            }
+            byte[] slice = new byte[BUFFER_SIZE];
+            for (int position = bytes.position(), end = bytes.limit(); position < end; position += slice.length) {
+                int length = Math.min(slice.length, end - position);
+                bytes.get(position, slice, 0, length);
+                scan(slice, 0, length);
+            }
+        }
+
+        private void scan(byte[] bytes, int from, int to) {
+            int line = lineNumber;
+            boolean afterReturn = afterCarriageReturn;
+            int partial = partialBreak;
+            int i = from;
+            if (carried.length() > 0) {
+                while (i < to && isLetter(bytes[i])) {
+                    carried.append((char) (bytes[i++] | 0x20));
+                }
+                if (i == to) {
+                    return;
+                }
+                handler.token(carried, line);
+                carried.clear();
+            }
+            while (i < to) {
+                int b = bytes[i];
+                if (isLetter(b)) {
+                    int start = i++;
+                    while (i < to && isLetter(bytes[i])) {
+                        i++;
+                    }
+                    if (i == to) {
+                        for (int j = start; j < to; j++) {
+                            carried.append((char) (bytes[j] | 0x20));
+                        }
+                    } else {
+                        view.set(bytes, start, i);
+                        handler.token(view, line);
+                    }
+                    afterReturn = false;
+                    partial = NO_BREAK;
+                    continue;
+                }
+                i++;
+                if (b >= 0) {
+                    if (b == '\n') {
+                        if (!afterReturn) {
+                            line++;
+                        }
+                    } else if (b == '\r') {
+                        line++;
+                    }
+                    afterReturn = b == '\r';
+                    partial = NO_BREAK;
+                } else {
+                    // U+0085 is C2 85, U+2028 and U+2029 are E2 80 A8 and E2 80 A9.
+                    int unsigned = b & 0xFF;
+                    afterReturn = false;
+                    if ((partial == AFTER_C2 && unsigned == 0x85)
+                            || (partial == AFTER_E2_80 && (unsigned == 0xA8 || unsigned == 0xA9))) {
+                        line++;
+                        partial = NO_BREAK;
+                    } else if (unsigned == 0xC2) {
+                        partial = AFTER_C2;
+                    } else if (unsigned == 0xE2) {
+                        partial = AFTER_E2;
+                    } else {
+                        partial = partial == AFTER_E2 && unsigned == 0x80 ? AFTER_E2_80 : NO_BREAK;
+                    }
+                }
+            }
+            lineNumber = line;
+            afterCarriageReturn = afterReturn;
+            partialBreak = partial;
+        }
+
+        private void finish() {
+            if (carried.length() > 0) {
+                handler.token(carried, lineNumber);
+                carried.clear();
+            }
+        }
+
+        private static boolean isLetter(int b) {
+            return (char) ((b | 0x20) - 'a') < 26;
+        }
+    }
+
+    /**
+     * A word seen through the bytes of the buffer it was found in, lower-cased
+     * as its characters are read.
+     */
+    private static final class ByteWord implements CharSequence {
+        private byte[] bytes;
+        private int start;
+        private int length;
+
+        private void set(byte[] bytes, int start, int end) {
+            this.bytes = bytes;
+            this.start = start;
+            this.length = end - start;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("No character at index " + index + ".");
+            }
+            return (char) (bytes[start + index] | 0x20);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) (bytes[start + i] | 0x20);
+            }
+            return new String(chars);
+        }
+    }
+}
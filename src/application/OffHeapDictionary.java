@@ -0,0 +1,264 @@
+package application;
+
+import modules.Word;
+import utilities.Iterator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A read-only dictionary of words kept outside the Java heap. The words, their
+ * locations and line numbers are encoded as in the repository format and
+ * packed into direct byte buffers allocated in large arenas, and the offset
+ * of every entry is kept in arenas of its own. The heap holds only the file
+ * numbers and one buffer object per arena, so a dictionary of any size adds
+ * next to nothing for the garbage collector to trace; words are decoded
+ * when they are asked for, as in {@link MappedRepository}.
+ *
+ * The arenas are freed when the dictionary is no longer referenced.
+ *
+ * @see WordIndexer#indexFilesOffHeap
+ */
+public class OffHeapDictionary {
+
+    /**
+     * Size of each arena. An entry larger than this gets an arena of its own.
+     */
+    private static final int ARENA_SIZE = 1 << 20;
+
+    /**
+     * Number of entry offsets held by each arena of the offset index.
+     */
+    private static final int OFFSETS_PER_ARENA = ARENA_SIZE / Long.BYTES;
+
+    private final List<ByteBuffer> arenas = new ArrayList<>();
+    private final List<ByteBuffer> offsets = new ArrayList<>();
+    private final int[] fileTable;
+    private final int size;
+
+    private OffHeapDictionary(Iterator<Word> words) {
+        Map<Integer, Integer> fileIndex = new HashMap<>();
+        List<Integer> fileIds = new ArrayList<>();
+        IntUnaryOperator filePosition = fileId -> fileIndex.computeIfAbsent(fileId, id -> {
+            fileIds.add(id);
+            return fileIds.size() - 1;
+        });
+        EntryBuffer entry = new EntryBuffer();
+        DataOutputStream out = new DataOutputStream(entry);
+        String previous = null;
+        int count = 0;
+        try {
+            while (words.hasNext()) {
+                Word word = words.next();
+                if (previous != null && previous.compareTo(word.getWord()) >= 0) {
+                    throw new IllegalArgumentException("The words are not in strictly increasing order.");
+                }
+                previous = word.getWord();
+
+                entry.reset();
+                RepositoryFile.writeWord(out, word, filePosition);
+                out.flush();
+                storeOffset(count++, store(entry));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.fileTable = fileIds.stream().mapToInt(Integer::intValue).toArray();
+        this.size = count;
+    }
+
+    /**
+     * Copies a sequence of words out of the heap into a new dictionary.
+     * @param words The words, in strictly increasing order.
+     * @return The dictionary holding the words.
+     * @throws IllegalArgumentException If the words are out of order or repeated.
+     */
+    public static OffHeapDictionary copyOf(Iterator<Word> words) {
+        return new OffHeapDictionary(words);
+    }
+
+    /**
+     * Copies an entry into the current arena, starting a new one when it
+     * does not fit.
+     * @return The arena number in the high half and the position in the low half.
+     */
+    private long store(EntryBuffer entry) {
+        ByteBuffer arena = arenas.isEmpty() ? null : arenas.get(arenas.size() - 1);
+        if (arena == null || arena.remaining() < entry.size()) {
+            arena = ByteBuffer.allocateDirect(Math.max(ARENA_SIZE, entry.size()));
+            arenas.add(arena);
+        }
+        int position = arena.position();
+        entry.copyTo(arena);
+        return (long) (arenas.size() - 1) << 32 | position;
+    }
+
+    private void storeOffset(int index, long offset) {
+        if (index % OFFSETS_PER_ARENA == 0) {
+            offsets.add(ByteBuffer.allocateDirect(ARENA_SIZE));
+        }
+        offsets.get(index / OFFSETS_PER_ARENA).putLong(index % OFFSETS_PER_ARENA * Long.BYTES, offset);
+    }
+
+    private long entryOffset(int index) {
+        return offsets.get(index / OFFSETS_PER_ARENA).getLong(index % OFFSETS_PER_ARENA * Long.BYTES);
+    }
+
+    private ByteBuffer arena(long offset) {
+        return arenas.get((int) (offset >>> 32));
+    }
+
+    /**
+     * Returns the number of words in the dictionary.
+     * @return The number of words.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes the dictionary holds outside the heap.
+     * @return The capacity of all of its arenas.
+     */
+    public long offHeapBytes() {
+        long bytes = 0;
+        for (ByteBuffer arena : arenas) {
+            bytes += arena.capacity();
+        }
+        for (ByteBuffer arena : offsets) {
+            bytes += arena.capacity();
+        }
+        return bytes;
+    }
+
+    /**
+     * Finds a word by binary search over the entry offsets and decodes it.
+     * @param key The word to find.
+     * @return The word with all of its locations, or null if it is not in the dictionary.
+     */
+    public Word lookup(String key) {
+        int index = indexOf(key);
+        return index < 0 ? null : get(index);
+    }
+
+    /**
+     * Checks whether a word is in the dictionary without decoding it.
+     * @param key The word to find.
+     * @return true if the word is in the dictionary.
+     */
+    public boolean contains(String key) {
+        return indexOf(key) >= 0;
+    }
+
+    private int indexOf(String key) {
+        int index = lowerBound(key);
+        return index < size && compareKey(index, key.getBytes(StandardCharsets.UTF_8)) == 0 ? index : -1;
+    }
+
+    /**
+     * Finds the position of the first word not less than a key.
+     */
+    private int lowerBound(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKey(mid, keyBytes) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int compareKey(int index, byte[] keyBytes) {
+        long offset = entryOffset(index);
+        return MappedRepository.compareKey(arena(offset), (int) offset, keyBytes);
+    }
+
+    /**
+     * Decodes the word at a position in sorted order.
+     * @param index The position of the word, from 0 to size() - 1.
+     * @return The word with all of its locations.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public Word get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No word at index " + index + ".");
+        }
+        long offset = entryOffset(index);
+        try {
+            return RepositoryFile.readWord(MappedRepository.entryStream(arena(offset), (int) offset), fileTable);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns an iterator decoding the words one at a time in sorted order.
+     * @return An iterator over the words of the dictionary.
+     */
+    public Iterator<Word> iterator() {
+        return iterator(0);
+    }
+
+    /**
+     * Returns an iterator decoding the words in sorted order, starting at the
+     * first word not less than a key, which is found by binary search.
+     * @param from The key to start at.
+     * @return An iterator over the words from the key onwards.
+     */
+    public Iterator<Word> iterator(String from) {
+        return iterator(lowerBound(from));
+    }
+
+    /**
+     * Returns an iterator decoding the words in sorted order, starting at a position.
+     * @param start The position of the first word, from 0 to size().
+     * @return An iterator over the words from the position onwards.
+     * @throws IndexOutOfBoundsException If the position is out of range.
+     */
+    public Iterator<Word> iterator(int start) {
+        if (start < 0 || start > size) {
+            throw new IndexOutOfBoundsException("No word at index " + start + ".");
+        }
+        return new Iterator<Word>() {
+            private int next = start;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Word next() throws NoSuchElementException {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more elements in iteration.");
+                }
+                return get(next++);
+            }
+        };
+    }
+
+    /**
+     * Reusable buffer an entry is encoded into before it is copied to an arena.
+     */
+    private static final class EntryBuffer extends ByteArrayOutputStream {
+
+        private void copyTo(ByteBuffer arena) {
+            arena.put(buf, 0, count);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package application;
+
+import modules.Word;
+import modules.WordLocation;
+import utilities.Iterator;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Writes the WordTracker report to a channel. Words are formatted into a
+ * reusable text buffer, which is encoded into a reusable byte buffer and
+ * written in large blocks, instead of printing every line through a
+ * PrintStream.
+ *
+ * With parallel formatting, the words are read in chunks on the calling
+ * thread, since the word sequence is usually a merge that cannot be split,
+ * and the chunks are formatted on the common fork-join pool. The chunks are
+ * written in order, so the report is the same either way.
+ */
+public class ReportWriter implements Flushable {
+
+    /**
+     * The text buffer is written out once it holds this many characters.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Number of words formatted together by one parallel task.
+     */
+    private static final int CHUNK_SIZE = 1 << 10;
+
+    private final WritableByteChannel channel;
+    private final String userOption;
+    private final boolean parallel;
+    private final String lineSeparator = System.lineSeparator();
+    private final CharsetEncoder encoder;
+    private final StringBuilder text = new StringBuilder(BUFFER_SIZE);
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * Creates a report writer. The channel stays open after the report is
+     * written; the caller closes it.
+     * @param channel    The channel to write the report to.
+     * @param userOption The report option: "f", "l" or "o".
+     * @param parallel   true to format the words on several threads.
+     */
+    public ReportWriter(WritableByteChannel channel, String userOption, boolean parallel) {
+        this.channel = channel;
+        this.userOption = userOption;
+        this.parallel = parallel;
+        this.encoder = Charset.defaultCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Writes a report on a sequence of words and flushes it to the channel.
+     * @param size     The number of words in the repository.
+     * @param iterator The words, in alphabetic order.
+     * @param limit    The largest number of words to write.
+     * @throws IOException If the report cannot be written.
+     */
+    public void writeReport(int size, Iterator<Word> iterator, int limit) throws IOException {
+        text.append("The number of words in the file is ").append(size).append(lineSeparator);
+        if (parallel) {
+            write(text);
+            text.setLength(0);
+            writeParallel(iterator, limit);
+        } else {
+            for (int written = 0; written < limit && iterator.hasNext(); written++) {
+                format(iterator.next(), text);
+                if (text.length() >= BUFFER_SIZE) {
+                    write(text);
+                    text.setLength(0);
+                }
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Formats chunks of words on the common pool while the next chunks are
+     * read, keeping a bounded number of chunks in flight.
+     */
+    private void writeParallel(Iterator<Word> iterator, int limit) throws IOException {
+        int window = 2 * ForkJoinPool.getCommonPoolParallelism();
+        Deque<CompletableFuture<StringBuilder>> pending = new ArrayDeque<>();
+        int remaining = limit;
+        while (remaining > 0 && iterator.hasNext()) {
+            List<Word> chunk = new ArrayList<>(Math.min(CHUNK_SIZE, remaining));
+            while (chunk.size() < CHUNK_SIZE && remaining > 0 && iterator.hasNext()) {
+                chunk.add(iterator.next());
+                remaining--;
+            }
+            pending.add(CompletableFuture.supplyAsync(() -> {
+                StringBuilder formatted = new StringBuilder(chunk.size() * 64);
+                for (Word word : chunk) {
+                    format(word, formatted);
+                }
+                return formatted;
+            }));
+            if (pending.size() >= window) {
+                write(join(pending.remove()));
+            }
+        }
+        while (!pending.isEmpty()) {
+            write(join(pending.remove()));
+        }
+    }
+
+    private static StringBuilder join(CompletableFuture<StringBuilder> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Formats the details of a word, such as file names and line numbers.
+     * @param word The word to format.
+     * @param out  The buffer to append the lines to.
+     */
+    private void format(Word word, StringBuilder out) {
+        boolean lines = "l".equals(userOption) || "o".equals(userOption);
+        boolean occurrences = "o".equals(userOption);
+        out.append("Word: ").append(word.getWord()).append(lineSeparator);
+        for (WordLocation wl : word.getWordLocations()) {
+            String fileName = wl.getFileName();
+            out.append("File name: ").append(fileName, fileName.lastIndexOf('/') + 1, fileName.length())
+                    .append(lineSeparator);
+
+            if (lines) {
+                for (int i = 0; i < wl.getLineCount(); i++) {
+                    out.append("Line number: ").append(wl.getLineNumber(i)).append(lineSeparator);
+                }
+            }
+
+            if (occurrences) {
+                out.append("Occurrence: ").append(word.getCount()).append(lineSeparator);
+            }
+        }
+    }
+
+    /**
+     * Encodes text into the byte buffer, writing the buffer out whenever it
+     * fills. The text always ends with a complete line, so each call encodes
+     * a complete input.
+     */
+    private void write(CharSequence chars) throws IOException {
+        CharBuffer input = CharBuffer.wrap(chars);
+        while (true) {
+            CoderResult result = encoder.encode(input, bytes, true);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isUnderflow()) {
+                while (encoder.flush(bytes).isOverflow()) {
+                    drain();
+                }
+                encoder.reset();
+                return;
+            } else {
+                result.throwException();
+            }
+        }
+    }
+
+    /**
+     * Writes any buffered text and bytes to the channel.
+     * @throws IOException If the channel cannot be written.
+     */
+    @Override
+    public void flush() throws IOException {
+        write(text);
+        text.setLength(0);
+        drain();
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
@@ -0,0 +1,391 @@
+package application;
+
+import modules.FileTable;
+import modules.Word;
+import modules.WordLocation;
+import utilities.AVLTree;
+import utilities.BSTree;
+import utilities.Iterator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Reads and writes the word repository in a compact, versioned binary format
+ * instead of Java serialization. The layout is:
+ * <pre>
+ * int     magic "WTRK"
+ * int     format version
+ * varint  number of files, then each file name
+ * varint  number of words, then for each word in sorted order:
+ *         word, count, number of locations, and for each location
+ *         file index, number of lines and the line numbers as deltas
+ * long    offset of every word entry, in sorted order (version 2)
+ * long    offset of that index block (version 2)
+ * </pre>
+ * Strings are written as a varint byte length followed by UTF-8 bytes.
+ * File names are stored once in the file table and referenced by index.
+ * Line numbers are written as the zigzag-encoded difference from the
+ * previous line of the same location, so ascending lines take one byte.
+ * The offset index at the end lets {@link MappedRepository} find a word by
+ * binary search without reading the entries before it.
+ *
+ * Repositories written by older versions with Java serialization are still
+ * read, and are converted the next time the repository is saved.
+ */
+public class RepositoryFile {
+
+    static final int MAGIC = 0x5754524B;
+    static final int VERSION = 2;
+
+    /**
+     * The first two bytes of every Java serialization stream.
+     */
+    private static final int SERIALIZATION_MAGIC = 0xACED;
+
+    private RepositoryFile() {
+    }
+
+    /**
+     * Saves a word tree to the repository file. The repository is written to a
+     * temporary file first and then moved over the old one, so an interrupted
+     * save never leaves a damaged repository behind.
+     * @param wordTree The word tree to save.
+     * @param file     The repository file.
+     * @throws IOException If there is an I/O issue.
+     */
+    public static void write(BSTree<Word> wordTree, File file) throws IOException {
+        write(wordTree.size(), wordTree::inorderIterator, file);
+    }
+
+    /**
+     * Saves a sequence of words to the repository file, replacing it in a
+     * single move as for a word tree.
+     * @param size  The number of words.
+     * @param words Supplies an iterator over the words in sorted order.
+     * @param file  The repository file.
+     * @throws IOException If there is an I/O issue.
+     */
+    public static void write(int size, Supplier<Iterator<Word>> words, File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temp), 1 << 16)) {
+            write(size, words, out);
+        }
+        Files.move(temp.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes a word tree to a stream in the repository format.
+     * @param wordTree The word tree to write.
+     * @param stream   The stream to write to.
+     * @throws IOException If there is an I/O issue.
+     */
+    public static void write(BSTree<Word> wordTree, OutputStream stream) throws IOException {
+        write(wordTree.size(), wordTree::inorderIterator, stream);
+    }
+
+    /**
+     * Writes a sequence of words to a stream in the repository format. The
+     * words are iterated twice, once to collect the file table and once to
+     * write them, so they need not all be held in a tree.
+     * @param size   The number of words.
+     * @param words  Supplies an iterator over the words in sorted order.
+     * @param stream The stream to write to.
+     * @throws IOException If there is an I/O issue.
+     */
+    public static void write(int size, Supplier<Iterator<Word>> words, OutputStream stream) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream(stream);
+        DataOutputStream out = new DataOutputStream(counter);
+        Map<Integer, Integer> fileTable = new LinkedHashMap<>();
+        Iterator<Word> iterator = words.get();
+        while (iterator.hasNext()) {
+            for (WordLocation wl : iterator.next().getWordLocations()) {
+                fileTable.putIfAbsent(wl.getFileId(), fileTable.size());
+            }
+        }
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeVarInt(out, fileTable.size());
+        for (int fileId : fileTable.keySet()) {
+            writeString(out, FileTable.nameOf(fileId));
+        }
+
+        long[] offsets = new long[size];
+        writeVarInt(out, size);
+        iterator = words.get();
+        for (int i = 0; iterator.hasNext(); i++) {
+            Word word = iterator.next();
+            offsets[i] = counter.count;
+            writeWord(out, word, fileTable::get);
+        }
+
+        long indexOffset = counter.count;
+        for (long offset : offsets) {
+            out.writeLong(offset);
+        }
+        out.writeLong(indexOffset);
+        out.flush();
+    }
+
+    /**
+     * Loads the word tree stored in the repository file. Since the words are
+     * stored in sorted order, they are loaded into a balanced tree.
+     * @param file The repository file.
+     * @return The word tree held in the repository.
+     * @throws IOException If there is an I/O issue or the file is not a repository.
+     * @throws ClassNotFoundException If the class of an old serialized repository cannot be found.
+     */
+    @SuppressWarnings("unchecked")
+    public static BSTree<Word> read(File file) throws IOException, ClassNotFoundException {
+        try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16)) {
+            in.mark(2);
+            int header = (in.read() << 8) | in.read();
+            in.reset();
+            if (header == SERIALIZATION_MAGIC) {
+                try (ObjectInputStream ois = new ObjectInputStream(in)) {
+                    return (BSTree<Word>) ois.readObject();
+                }
+            }
+            return read(new DataInputStream(in));
+        }
+    }
+
+    /**
+     * Reads a word tree from a stream in the repository format.
+     * @param in The stream to read from.
+     * @return The word tree read from the stream.
+     * @throws IOException If there is an I/O issue or the stream is not a repository.
+     */
+    public static BSTree<Word> read(DataInputStream in) throws IOException {
+        readHeader(in);
+        int[] fileTable = readFileTable(in);
+
+        int wordCount = readVarInt(in);
+        List<Word> words = new ArrayList<>(wordCount);
+        for (int i = 0; i < wordCount; i++) {
+            words.add(readWord(in, fileTable));
+        }
+        try {
+            return new AVLTree<>(words);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("The words of the repository are out of order.", e);
+        }
+    }
+
+    /**
+     * Reads the words of the repository file one at a time, in sorted order,
+     * through a stream rather than a mapping. The stream is closed once the
+     * last word has been read, so nothing holds on to the file afterwards and
+     * it can be replaced even where a mapped file cannot be. A repository
+     * written with Java serialization can only be loaded whole.
+     * @param file The repository file.
+     * @return An iterator over the words of the repository in sorted order.
+     * @throws IOException If there is an I/O issue or the file is not a repository.
+     */
+    public static Iterator<Word> iterator(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        int[] fileTable;
+        int wordCount;
+        try {
+            in.mark(2);
+            int header = (in.read() << 8) | in.read();
+            in.reset();
+            if (header == SERIALIZATION_MAGIC) {
+                in.close();
+                try {
+                    return read(file).inorderIterator();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("The serialized repository could not be read.", e);
+                }
+            }
+            readHeader(in);
+            fileTable = readFileTable(in);
+            wordCount = readVarInt(in);
+            if (wordCount == 0) {
+                in.close();
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+
+        return new Iterator<Word>() {
+            private int remaining = wordCount;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public Word next() throws NoSuchElementException {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more elements in iteration.");
+                }
+                try {
+                    Word word = readWord(in, fileTable);
+                    if (--remaining == 0) {
+                        in.close();
+                    }
+                    return word;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Checks the magic number and version at the start of a repository.
+     * @param in The stream to read from, positioned at the start of the repository.
+     * @throws IOException If there is an I/O issue or the stream is not a repository.
+     */
+    private static void readHeader(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("The file is not a word repository.");
+        }
+        int version = in.readInt();
+        if (version > VERSION) {
+            throw new IOException("Unsupported repository version " + version + ".");
+        }
+    }
+
+    /**
+     * Reads the file table at the start of a repository, numbering each file
+     * name in the FileTable.
+     * @param in The stream to read from, positioned after the version.
+     * @return The FileTable numbers of the file names, indexed by their position in the repository.
+     * @throws IOException If there is an I/O issue.
+     */
+    static int[] readFileTable(DataInput in) throws IOException {
+        int[] fileTable = new int[readVarInt(in)];
+        for (int i = 0; i < fileTable.length; i++) {
+            fileTable[i] = FileTable.idOf(readString(in));
+        }
+        return fileTable;
+    }
+
+    /**
+     * Reads one word entry along with all of its locations.
+     * @param in        The stream to read from, positioned at the entry.
+     * @param fileTable The FileTable numbers of the file names of the repository.
+     * @return The word read.
+     * @throws IOException If there is an I/O issue.
+     */
+    static Word readWord(DataInput in, int[] fileTable) throws IOException {
+        Word word = new Word(readString(in));
+        word.setCount(readVarInt(in));
+        int locationCount = readVarInt(in);
+        List<WordLocation> wordLocations = new ArrayList<>(locationCount);
+        for (int j = 0; j < locationCount; j++) {
+            WordLocation wl = new WordLocation(fileTable[readVarInt(in)]);
+            int lineCount = readVarInt(in);
+            int lineNumber = 0;
+            for (int k = 0; k < lineCount; k++) {
+                lineNumber += unzigzag(readVarInt(in));
+                wl.addLineNumber(lineNumber);
+            }
+            wordLocations.add(wl);
+        }
+        word.setWordLocations(wordLocations);
+        return word;
+    }
+
+    /**
+     * Writes one word entry along with all of its locations, as readWord reads it.
+     * @param out       The stream to write to.
+     * @param word      The word to write.
+     * @param fileTable Gives the position in the repository's file table of a FileTable number.
+     * @throws IOException If there is an I/O issue.
+     */
+    static void writeWord(DataOutput out, Word word, IntUnaryOperator fileTable) throws IOException {
+        writeString(out, word.getWord());
+        writeVarInt(out, word.getCount());
+        writeVarInt(out, word.getWordLocations().size());
+        for (WordLocation wl : word.getWordLocations()) {
+            writeVarInt(out, fileTable.applyAsInt(wl.getFileId()));
+            writeVarInt(out, wl.getLineCount());
+            int previous = 0;
+            for (int k = 0; k < wl.getLineCount(); k++) {
+                int lineNumber = wl.getLineNumber(k);
+                writeVarInt(out, zigzag(lineNumber - previous));
+                previous = lineNumber;
+            }
+        }
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in repository.");
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Passes bytes through to another stream while counting them, so entry
+     * offsets are known as the repository is written.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package application;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Splits a text file into words for the WordIndexer. A word is a run of the
+ * letters a to z, in either case, and is reported in lower case together
+ * with the number of the line it is on, counting from 1.
+ */
+public interface Tokenizer {
+
+    /**
+     * Reads a file and passes each of its words to a handler, in the order
+     * they appear in the file.
+     * @param file    The file to read.
+     * @param handler Receives each word along with its line number.
+     * @throws IOException If the file cannot be read.
+     */
+    void tokenize(File file, TokenHandler handler) throws IOException;
+
+    /**
+     * Receives the words found by a Tokenizer.
+     */
+    @FunctionalInterface
+    interface TokenHandler {
+
+        /**
+         * Handles one word. The characters of the word are only valid during
+         * the call, since the tokenizer may reuse them for the next word; call
+         * toString() on the word to keep it.
+         * @param word       The word, in lower case.
+         * @param lineNumber The line the word is on.
+         */
+        void token(CharSequence word, int lineNumber);
+    }
+}
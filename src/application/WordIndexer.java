@@ -0,0 +1,336 @@
+package application;
+
+import modules.FileTable;
+import modules.Word;
+import modules.WordLocation;
+import utilities.AVLTree;
+import utilities.BSTree;
+import utilities.Iterator;
+import utilities.RadixTree;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The WordIndexer reads text files into word trees. Several files can be
+ * indexed concurrently: each fork-join worker fills its own tree, and the
+ * partial trees are combined with a linear merge of their sorted contents.
+ * The same merge combines the repository with the words logged since it
+ * was last compacted.
+ */
+public class WordIndexer {
+
+    /**
+     * Number of words read into the heap before they are copied off the heap.
+     */
+    private static final int FREEZE_THRESHOLD = 1 << 16;
+
+    private WordIndexer() {
+    }
+
+    /**
+     * Processes the input file, reading words and updating the word tree.
+     * Each word costs a single tree descent, mostly decided by comparing the
+     * prefix of the word, and a Word is only created the first time it is seen.
+     * @param file      The file to read.
+     * @param wordTree  Binary search tree to store the words.
+     * @param fileName  Name recorded as the location of every word read.
+     * @param tokenizer Splits the file into words.
+     * @throws IOException If the file cannot be read.
+     */
+    public static void processInputFile(File file, BSTree<Word> wordTree, String fileName,
+                                        Tokenizer tokenizer) throws IOException {
+        int fileId = FileTable.idOf(fileName);
+        Word.KeyOrder order = new Word.KeyOrder();
+        tokenizer.tokenize(file, (word, lineNumber) ->
+                wordTree.computeIfAbsent(word, order.of(word), key -> new Word(key.toString()))
+                        .addCount(lineNumber, fileId));
+    }
+
+    /**
+     * Processes the input file into a radix tree keyed by the words. Each
+     * word is found by reading its characters once, and a Word is only
+     * created the first time it is seen.
+     * @param file      The file to read.
+     * @param wordTree  Radix tree to store the words.
+     * @param fileName  Name recorded as the location of every word read.
+     * @param tokenizer Splits the file into words.
+     * @throws IOException If the file cannot be read.
+     */
+    public static void processInputFile(File file, RadixTree<Word> wordTree, String fileName,
+                                        Tokenizer tokenizer) throws IOException {
+        int fileId = FileTable.idOf(fileName);
+        tokenizer.tokenize(file, (word, lineNumber) ->
+                wordTree.computeIfAbsent(word, key -> new Word(key.toString())).addCount(lineNumber, fileId));
+    }
+
+    /**
+     * Reads one file into a word tree.
+     * @param file      The file to read.
+     * @param wordTree  The tree to add the words to.
+     * @param tokenizer Splits the file into words.
+     * @throws UncheckedIOException If the file cannot be read.
+     */
+    public static void indexFile(File file, BSTree<Word> wordTree, Tokenizer tokenizer) {
+        try {
+            processInputFile(file, wordTree, file.getPath().toLowerCase(), tokenizer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads many files concurrently. Every worker of the common fork-join pool
+     * indexes its share of the files into a tree of its own, and the trees are
+     * merged pairwise in file order, so locations are listed in the same
+     * order as a sequential run would list them.
+     * @param files     The files to read.
+     * @param balanced  true to fill AVL trees rather than plain ones.
+     * @param tokenizer Splits the files into words; it is shared by the workers.
+     * @return A tree holding the words of all the files.
+     * @throws UncheckedIOException If a file cannot be read.
+     */
+    public static BSTree<Word> indexFiles(List<File> files, boolean balanced, Tokenizer tokenizer) {
+        return files.parallelStream().collect(() -> new PartialTree(balanced),
+                (partial, file) -> indexFile(file, partial.tree, tokenizer),
+                PartialTree::merge).tree;
+    }
+
+    /**
+     * Reads many files into a dictionary kept outside the heap, for corpora
+     * whose words would not fit in it. Files are read one at a time into a
+     * heap tree, which is copied into a new off-heap run as soon as it holds
+     * FREEZE_THRESHOLD words, even in the middle of a file, so a single large
+     * file never has to fit in the heap. Runs of similar size are merged into
+     * one, so every word is copied a logarithmic number of times, and the heap
+     * never holds more than one unfrozen tree and the words being merged.
+     * @param files     The files to read.
+     * @param tokenizer Splits the files into words.
+     * @return A dictionary holding the words of all the files.
+     * @throws UncheckedIOException If a file cannot be read.
+     */
+    public static OffHeapDictionary indexFilesOffHeap(List<File> files, Tokenizer tokenizer) {
+        RunStack runs = new RunStack();
+        for (File file : files) {
+            int fileId = FileTable.idOf(file.getPath().toLowerCase());
+            try {
+                tokenizer.tokenize(file, (word, lineNumber) -> runs.add(word, lineNumber, fileId));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return runs.finish();
+    }
+
+    /**
+     * Removes every location in one file from a word tree, and the words that
+     * were found only in that file. Only the words of the file are visited,
+     * so the cost grows with the file rather than with the tree; a word found
+     * in many files looks the file up in its map of locations, and the
+     * emptied words are removed one at a time, so the tree stays balanced.
+     * @param wordTree  The tree to remove the file from.
+     * @param fileName  The name recorded as the location of the file's words.
+     * @param fileWords The words of the tree found in the file. Words listed
+     *                  twice, or no longer holding the file, are skipped.
+     * @return The number of words removed from the tree.
+     */
+    public static int unindexFile(BSTree<Word> wordTree, String fileName, Iterable<Word> fileWords) {
+        int fileId = FileTable.find(fileName);
+        if (fileId < 0) {
+            return 0;
+        }
+        int removed = 0;
+        for (Word word : fileWords) {
+            if (word.removeLocation(fileId) && word.getWordLocations().isEmpty()) {
+                wordTree.remove(word);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Drops the locations in some files from a sorted sequence of words as it
+     * is iterated, and the words left with no locations, such as the words of
+     * the repository after files were removed from it in the log.
+     * @param words   The words, in sorted order.
+     * @param fileIds The numbers of the file names whose locations are dropped.
+     * @return An iterator over the words that still have locations, in sorted order.
+     */
+    public static Iterator<Word> withoutFiles(Iterator<Word> words, Set<Integer> fileIds) {
+        if (fileIds.isEmpty()) {
+            return words;
+        }
+        return new Iterator<Word>() {
+            private Word next = advance();
+
+            private Word advance() {
+                while (words.hasNext()) {
+                    Word word = words.next();
+                    List<WordLocation> locations = word.getWordLocations();
+                    for (int i = locations.size() - 1; i >= 0; i--) {
+                        int fileId = locations.get(i).getFileId();
+                        if (fileIds.contains(fileId)) {
+                            word.removeLocation(fileId);
+                        }
+                    }
+                    if (!word.getWordLocations().isEmpty()) {
+                        return word;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Word next() throws NoSuchElementException {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more elements in iteration.");
+                }
+                Word word = next;
+                next = advance();
+                return word;
+            }
+        };
+    }
+
+    /**
+     * Merges two word trees in a single pass over their sorted contents. Words
+     * present in both trees are combined into the word of the first tree.
+     * The merged words come out in order, so the result is built directly as
+     * a perfectly balanced tree in linear time.
+     * @param first  The tree whose words take precedence, such as the repository.
+     * @param second The tree to merge into it.
+     * @return A tree holding the words of both trees.
+     */
+    public static BSTree<Word> merge(BSTree<Word> first, BSTree<Word> second) {
+        if (second.isEmpty()) {
+            return first;
+        }
+        if (first.isEmpty()) {
+            return second;
+        }
+        List<Word> words = new ArrayList<>(first.size() + second.size());
+        Iterator<Word> iterator = mergedIterator(first.inorderIterator(), second.inorderIterator());
+        while (iterator.hasNext()) {
+            words.add(iterator.next());
+        }
+        return new AVLTree<>(words);
+    }
+
+    /**
+     * Merges two sorted sequences of words as they are iterated. A word found
+     * in both sequences is returned once, as the word of the first sequence
+     * with the locations of the second one added to it.
+     * @param first  The words whose locations come first, in sorted order.
+     * @param second The words to merge into them, in sorted order.
+     * @return An iterator over the words of both sequences in sorted order.
+     */
+    public static Iterator<Word> mergedIterator(Iterator<Word> first, Iterator<Word> second) {
+        return new Iterator<Word>() {
+            private Word left = first.hasNext() ? first.next() : null;
+            private Word right = second.hasNext() ? second.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return left != null || right != null;
+            }
+
+            @Override
+            public Word next() throws NoSuchElementException {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more elements in iteration.");
+                }
+                int comparison = left == null ? 1 : right == null ? -1 : left.compareTo(right);
+                Word word;
+                if (comparison > 0) {
+                    word = right;
+                    right = second.hasNext() ? second.next() : null;
+                } else {
+                    word = left;
+                    if (comparison == 0) {
+                        word.merge(right);
+                        right = second.hasNext() ? second.next() : null;
+                    }
+                    left = first.hasNext() ? first.next() : null;
+                }
+                return word;
+            }
+        };
+    }
+
+    /**
+     * Mutable holder for the tree a fork-join worker fills, so partial results
+     * can be merged in place by the stream collector.
+     */
+    private static final class PartialTree {
+        private BSTree<Word> tree;
+
+        private PartialTree(boolean balanced) {
+            tree = balanced ? new AVLTree<>() : new BSTree<>();
+        }
+
+        private void merge(PartialTree other) {
+            tree = WordIndexer.merge(tree, other.tree);
+        }
+    }
+
+    /**
+     * Mutable holder for the heap tree being filled and the off-heap runs
+     * frozen from it, so the tokenizer callback can freeze a run mid-file.
+     * Runs are kept on a stack, the oldest at the bottom, and older runs come
+     * first in every merge, so locations keep the order in which the files
+     * were read; a word split across runs by a freeze inside one file gets
+     * its lines back in a single location when the runs are merged.
+     */
+    private static final class RunStack {
+        private final Deque<OffHeapDictionary> runs = new ArrayDeque<>();
+        private final Word.KeyOrder order = new Word.KeyOrder();
+        private BSTree<Word> wordTree = new AVLTree<>();
+
+        private void add(CharSequence word, int lineNumber, int fileId) {
+            wordTree.computeIfAbsent(word, order.of(word), key -> new Word(key.toString()))
+                    .addCount(lineNumber, fileId);
+            if (wordTree.size() >= FREEZE_THRESHOLD) {
+                push(OffHeapDictionary.copyOf(wordTree.inorderIterator()));
+                wordTree = new AVLTree<>();
+            }
+        }
+
+        /**
+         * Pushes a run onto the stack, first merging it with the runs on top
+         * that are no more than twice its size.
+         */
+        private void push(OffHeapDictionary run) {
+            while (!runs.isEmpty() && runs.peekLast().size() <= 2 * run.size()) {
+                run = OffHeapDictionary.copyOf(mergedIterator(runs.removeLast().iterator(), run.iterator()));
+            }
+            runs.addLast(run);
+        }
+
+        /**
+         * Freezes the words left in the heap and merges all the runs into one.
+         */
+        private OffHeapDictionary finish() {
+            if (!wordTree.isEmpty() || runs.isEmpty()) {
+                push(OffHeapDictionary.copyOf(wordTree.inorderIterator()));
+            }
+            OffHeapDictionary dictionary = runs.removeLast();
+            while (!runs.isEmpty()) {
+                dictionary = OffHeapDictionary.copyOf(mergedIterator(runs.removeLast().iterator(), dictionary.iterator()));
+            }
+            return dictionary;
+        }
+    }
+}
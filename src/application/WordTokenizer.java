@@ -0,0 +1,108 @@
+package application;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A Tokenizer that reads a file through a large char buffer and classifies
+ * every character once, lower-casing letters as it copies them into a
+ * reused word buffer. No String is built for a word unless the handler asks
+ * for one. Lines end at the same characters that Scanner.nextLine stops at.
+ */
+public class WordTokenizer implements Tokenizer {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    @Override
+    public void tokenize(File file, TokenHandler handler) throws IOException {
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            tokenize(reader, handler);
+        }
+    }
+
+    /**
+     * Reads text from a reader and passes each of its words to a handler.
+     * @param reader  The text to read.
+     * @param handler Receives each word along with its line number.
+     * @throws IOException If the text cannot be read.
+     */
+    public void tokenize(Reader reader, TokenHandler handler) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        TokenBuffer word = new TokenBuffer();
+        int lineNumber = 1;
+        boolean afterCarriageReturn = false;
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                    word.append((char) (c | 0x20));
+                    afterCarriageReturn = false;
+                    continue;
+                }
+                if (word.length() > 0) {
+                    handler.token(word, lineNumber);
+                    word.clear();
+                }
+                if (c == '\n') {
+                    if (!afterCarriageReturn) {
+                        lineNumber++;
+                    }
+                } else if (c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                    lineNumber++;
+                }
+                afterCarriageReturn = c == '\r';
+            }
+        }
+        if (word.length() > 0) {
+            handler.token(word, lineNumber);
+        }
+    }
+
+    /**
+     * The growable char buffer a word is collected in, handed to the handler
+     * as a CharSequence and then cleared for the next word.
+     */
+    static final class TokenBuffer implements CharSequence {
+        private char[] chars = new char[32];
+        private int length;
+
+        void append(char c) {
+            if (length == chars.length) {
+                chars = java.util.Arrays.copyOf(chars, length * 2);
+            }
+            chars[length++] = c;
+        }
+
+        void clear() {
+            length = 0;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("No character at index " + index + ".");
+            }
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+}
@@ -1,169 +1,437 @@
 package application;
 
-import exceptions.TreeException;
-import modules.WordLocation;
+import utilities.AVLTree;
 import utilities.BSTree;
 import utilities.Iterator;
 import modules.Word;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
 
 /**
  * The WordTracker program processes text files, building a binary search tree
  * to store and track occurrences of unique words. It records each word's
  * occurrences along with the line numbers and filenames. This program
  * supports serializing the word tree into a binary file and
- * can generate reports based on user input.
+ * can generate reports based on user input. Words read by each run are
+ * appended to a log next to the repository, which is folded into the
+ * repository once it grows large enough.
  */
 public class WordTracker {
 
     private static final long serialVersionUID = 1L;
     private static String fileOutputName;
-    private static String fileInputName;
+    private static List<String> fileInputNames;
     private static String userOption;
+    private static boolean balanced;
+    private static String queryStart;
+    private static ToIntFunction<Word> query;
+    private static int pageStart;
+    private static int pageLength = Integer.MAX_VALUE;
+    private static List<String> unindexNames = new ArrayList<>();
+    private static boolean parallelReport;
+    private static boolean offHeap;
+    private static ReportWriter report;
+    private static Tokenizer tokenizer = new MappedTokenizer();
+
+    /**
+     * The numbers of the files removed in the log, whose locations are dropped
+     * from the words of the repository as they are read.
+     */
+    private static Set<Integer> removedFiles = new HashSet<>();
     static final File REPOSITORY_FILE = new File("ser/repository.ser");
+    static final File LOG_FILE = new File("ser/repository.log");
+
+    /**
+     * The log is compacted once it is larger than this fraction of the repository.
+     */
+    private static final int COMPACTION_RATIO = 4;
 
     /**
      * The main method that initiates the WordTracker program.
      * @param args Arguments from the command line to control program behavior.
      */
     public static void main(String[] args) {
-        BSTree<Word> wordTree;
-
         try {
             if (!parseArgs(args)) return;
 
-            Scanner scanner = new Scanner(new File(fileInputName));
-            wordTree = initializeWordTree();
-
-            if (fileOutputName != null) {
-                redirectOutputToFile();
+            if (!unindexNames.isEmpty()) {
+                unindex();
             }
 
-            processInputFile(scanner, wordTree);
-            saveWordTree(wordTree);
+            if (!fileInputNames.isEmpty()) {
+                List<File> inputFiles = collectInputFiles();
+                if (offHeap) {
+                    indexOffHeap(inputFiles);
+                } else {
+                    BSTree<Word> wordTree;
+                    if (inputFiles.size() == 1) {
+                        wordTree = balanced ? new AVLTree<>() : new BSTree<>();
+                        WordIndexer.indexFile(inputFiles.get(0), wordTree, tokenizer);
+                    } else {
+                        wordTree = WordIndexer.indexFiles(inputFiles, balanced, tokenizer);
+                    }
+                    DeltaLog.append(wordTree, LOG_FILE);
+                }
+            }
 
-            printWordTree(wordTree);
-        } catch (IOException | TreeException | ClassNotFoundException e) {
+            printRepository();
+        } catch (IOException | ClassNotFoundException e) {
             throw new RuntimeException(e);
         }
     }
 
     /**
-     * Processes the input file, reading words and updating the word tree.
-     * @param scanner  Scanner to read the input file.
-     * @param wordTree Binary search tree to store the words.
-     * @throws TreeException If tree operations encounter issues.
+     * Expands the input arguments into the files to read. A directory stands
+     * for every regular file below it, in path order.
+     * @return The files to read.
+     * @throws IOException If a directory cannot be walked.
      */
-    private static void processInputFile(Scanner scanner, BSTree<Word> wordTree) throws TreeException {
-        int lineCount = 0;
-
-        while (scanner.hasNextLine()) {
-            lineCount++;
-            String line = sanitizeLine(scanner.nextLine());
-
-            for (String wordStr : line.split("\\s+")) {
-                if (wordStr.isEmpty()) continue;
-
-                Word word = new Word(wordStr.toLowerCase());
-                word.addCount(lineCount, fileInputName);
-
-                if (wordTree.isEmpty() || wordTree.search(word) == null) {
-                    wordTree.add(word);
-                } else {
-                    wordTree.search(word).getElement().addCount(lineCount, fileInputName);
+    private static List<File> collectInputFiles() throws IOException {
+        List<File> inputFiles = new ArrayList<>();
+        for (String name : fileInputNames) {
+            Path path = Paths.get(name);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> paths = Files.walk(path)) {
+                    paths.filter(Files::isRegularFile).sorted().map(Path::toFile).forEach(inputFiles::add);
                 }
+            } else {
+                inputFiles.add(path.toFile());
             }
         }
+        return inputFiles;
+    }
+
+    /**
+     * Opens the repository for reading. A repository written in an older
+     * format is converted first, so that it can be memory-mapped.
+     * @return The mapped repository, or null if there is none yet.
+     * @throws IOException If there is an I/O issue.
+     * @throws ClassNotFoundException If the class for a serialized object cannot be found.
+     */
+    private static MappedRepository openRepository() throws IOException, ClassNotFoundException {
+        if (!REPOSITORY_FILE.exists()) {
+            return null;
+        }
+        MappedRepository repository = MappedRepository.open(REPOSITORY_FILE);
+        if (repository == null) {
+            RepositoryFile.write(RepositoryFile.read(REPOSITORY_FILE), REPOSITORY_FILE);
+            repository = MappedRepository.open(REPOSITORY_FILE);
+        }
+        return repository;
     }
 
     /**
-     * Sanitizes a line of text by removing non-letter characters.
-     * @param line The line to be sanitized.
-     * @return The sanitized line.
+     * Checks whether the log has grown large enough, compared to the
+     * repository, to be worth folding into it: its records of words take up
+     * more than a fraction of the repository's size. A log still holding a
+     * removal, left by a compaction that failed, is always compacted.
+     * @return true if the log should be compacted.
      */
-    private static String sanitizeLine(String line) {
-        return line.replaceAll("[^a-zA-Z\\s]", " ").trim();
+    private static boolean needsCompaction() {
+        return LOG_FILE.exists() && (LOG_FILE.length() * COMPACTION_RATIO > REPOSITORY_FILE.length()
+                || !removedFiles.isEmpty());
     }
 
     /**
-     * Initializes the word tree from the repository if it exists, or creates a new one.
-     * @return The initialized or new word tree.
+     * Folds the logged words and removals into the repository and removes
+     * the log. The repository is read through a stream rather than mapped,
+     * so that no mapping of its own stops it from being replaced. Its merge
+     * with the log is rebuilt for each pass over it, once to count the words
+     * and then as the repository file is written, so the heap holds no more
+     * than the log. The new repository replaces the old one in a single move,
+     * and the log is only removed afterwards; replaying a log that outlived
+     * its compaction changes nothing, so an interrupted compaction loses no words.
+     * @param removals The numbers of the files removed in the log.
+     * @param logged   Supplies the words to fold in, in sorted order.
      * @throws IOException If there is an I/O issue.
-     * @throws ClassNotFoundException If the class for a serialized object cannot be found.
      */
-    private static BSTree<Word> initializeWordTree() throws IOException, ClassNotFoundException {
-        BSTree<Word> wordTree;
-        if (REPOSITORY_FILE.exists()) {
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(REPOSITORY_FILE))) {
-                wordTree = (BSTree<Word>) ois.readObject();
+    private static void compact(Set<Integer> removals, Supplier<Iterator<Word>> logged) throws IOException {
+        boolean hasRepository = REPOSITORY_FILE.exists();
+        Supplier<Iterator<Word>> words = () -> {
+            if (!hasRepository) {
+                return logged.get();
             }
-        } else {
-            wordTree = new BSTree<>();
+            try {
+                return WordIndexer.mergedIterator(
+                        WordIndexer.withoutFiles(RepositoryFile.iterator(REPOSITORY_FILE), removals), logged.get());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        try {
+            RepositoryFile.write(count(words.get()), words, REPOSITORY_FILE);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-        return wordTree;
+        Files.deleteIfExists(LOG_FILE.toPath());
+    }
+
+    /**
+     * Reads the input files outside the heap and folds them straight into the
+     * repository, together with the log, by compacting the log with the new
+     * words merged into it. The merged words are never all held at once, and
+     * only the log is read into the heap.
+     * @param inputFiles The files to read.
+     * @throws IOException If there is an I/O issue.
+     */
+    private static void indexOffHeap(List<File> inputFiles) throws IOException {
+        OffHeapDictionary added = WordIndexer.indexFilesOffHeap(inputFiles, tokenizer);
+        Set<Integer> logRemovals = new HashSet<>();
+        BSTree<Word> log = DeltaLog.read(LOG_FILE, logRemovals);
+        compact(logRemovals, () -> WordIndexer.mergedIterator(log.inorderIterator(), added.iterator()));
     }
 
     /**
-     * Redirects the standard output to a file.
-     * @throws FileNotFoundException If the specified file cannot be found.
+     * Counts the words of a sequence by reading it to the end.
+     * @param words The words to count.
+     * @return The number of words.
      */
-    private static void redirectOutputToFile() throws FileNotFoundException {
-        System.setOut(new PrintStream(new FileOutputStream(fileOutputName)));
+    private static int count(Iterator<Word> words) {
+        int size = 0;
+        for (; words.hasNext(); words.next()) {
+            size++;
+        }
+        return size;
     }
 
     /**
-     * Prints the contents of the word tree.
-     * @param wordTree The word tree to print.
+     * Removes the files named on the command line from the repository. The
+     * removal is appended to the log first, so it is not lost if the program
+     * stops, and the log is then compacted straight away, before anything
+     * maps the repository. Reports never have to filter removed files out of
+     * the repository word by word, so paging stays a binary search.
+     * @throws IOException If there is an I/O issue.
      */
-    private static void printWordTree(BSTree<Word> wordTree) {
-        System.out.println("The number of words in the file is " + wordTree.size());
+    private static void unindex() throws IOException {
+        List<String> fileNames = new ArrayList<>();
+        for (String name : unindexNames) {
+            fileNames.add(new File(name).getPath().toLowerCase());
+        }
+        DeltaLog.appendRemoval(fileNames, LOG_FILE);
+        Set<Integer> removals = new HashSet<>();
+        BSTree<Word> logTree = DeltaLog.read(LOG_FILE, removals);
+        compact(removals, logTree::inorderIterator);
+    }
 
-        Iterator<Word> iterator = wordTree.inorderIterator();
-        while (iterator.hasNext()) {
-            printWordDetails(iterator.next());
+    /**
+     * Opens the channel the report is written to: the output file if one was
+     * given, or the standard output otherwise.
+     * @return The channel to write the report to.
+     * @throws IOException If the output file cannot be opened.
+     */
+    private static WritableByteChannel openOutput() throws IOException {
+        if (fileOutputName == null) {
+            return Channels.newChannel(System.out);
         }
+        return FileChannel.open(Paths.get(fileOutputName), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
     }
 
     /**
-     * Prints details of a word, such as file names and line numbers.
-     * @param word The word to print details for.
+     * Prints the repository together with the words logged since it was last
+     * compacted. The repository is memory-mapped and its words decoded one at
+     * a time as they are merged with the log and printed. When the log has
+     * grown too large it is compacted once the report has been printed. Some
+     * systems refuse to replace a file that is still mapped, so a compaction
+     * that fails is reported and the log kept; no words are lost, as the log
+     * is only removed once the new repository is in place.
+     * @throws IOException If there is an I/O issue.
+     * @throws ClassNotFoundException If the class for a serialized object cannot be found.
      */
-    private static void printWordDetails(Word word) {
-        System.out.println("Word: " + word.getWord());
-        for (WordLocation wl : word.getWordLocations()) {
-            String fileName = extractFileName(wl.getFileName());
-            System.out.println("File name: " + fileName);
+    private static void printRepository() throws IOException, ClassNotFoundException {
+        MappedRepository repository = openRepository();
+        removedFiles = new HashSet<>();
+        BSTree<Word> logTree = DeltaLog.read(LOG_FILE, removedFiles);
 
-            if ("l".equals(userOption) || "o".equals(userOption)) {
-                wl.getLineNumbers().forEach(lineNumber -> System.out.println("Line number: " + lineNumber));
+        WritableByteChannel output = openOutput();
+        report = new ReportWriter(output, userOption, parallelReport);
+        try {
+            printReport(repository, logTree);
+        } finally {
+            if (fileOutputName != null) {
+                output.close();
             }
+            System.out.flush();
+        }
 
-            if ("o".equals(userOption)) {
-                System.out.println("Occurrence: " + word.getCount());
+        if (needsCompaction()) {
+            try {
+                compact(removedFiles, logTree::inorderIterator);
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("The log could not be compacted: " + e.getMessage());
             }
         }
     }
 
     /**
-     * Extracts the file name from a file path.
-     * @param fullPath The full path of the file.
-     * @return The name of the file.
+     * Prints the report, the whole of it or the part asked for by a query or page.
+     * @param repository The mapped repository, or null if there is none yet.
+     * @param logTree    The words read from the log.
+     * @throws IOException If the report cannot be written.
      */
-    private static String extractFileName(String fullPath) {
-        return fullPath.substring(fullPath.lastIndexOf('/') + 1);
+    private static void printReport(MappedRepository repository, BSTree<Word> logTree) throws IOException {
+        if (query != null) {
+            printQuery(repository, logTree);
+        } else if (repository == null) {
+            printWords(logTree.size(), logTree.inorderIterator(Math.min(pageStart, logTree.size())));
+        } else if (!removedFiles.isEmpty()) {
+            // Removals are compacted as soon as they are logged, so this only
+            // happens after a compaction failed. Removed files may leave words
+            // of the repository without locations, so the words are counted,
+            // and the page found, by reading them.
+            int size = 0;
+            for (Iterator<Word> counted = reportWords(repository, logTree); counted.hasNext(); counted.next()) {
+                size++;
+            }
+            Iterator<Word> words = reportWords(repository, logTree);
+            for (int i = 0; i < pageStart && words.hasNext(); i++) {
+                words.next();
+            }
+            printWords(size, words);
+        } else {
+            List<String> added = new ArrayList<>();
+            Iterator<Word> logged = logTree.inorderIterator();
+            while (logged.hasNext()) {
+                String word = logged.next().getWord();
+                if (!repository.contains(word)) {
+                    added.add(word);
+                }
+            }
+            int[] start = seek(repository, logTree, added, pageStart);
+            printWords(repository.size() + added.size(), WordIndexer.mergedIterator(
+                    repository.iterator(start[0]), logTree.inorderIterator(start[1])));
+        }
     }
 
     /**
-     * Saves the word tree to the repository file.
-     * @param wordTree The word tree to save.
-     * @throws IOException If there is an I/O issue.
+     * Returns the words of the repository, without the locations in files
+     * removed in the log, merged with the words of the log.
+     * @param repository The mapped repository.
+     * @param logTree    The words read from the log.
+     * @return An iterator over the words of the report in alphabetic order.
+     */
+    private static Iterator<Word> reportWords(MappedRepository repository, BSTree<Word> logTree) {
+        return WordIndexer.mergedIterator(WordIndexer.withoutFiles(repository.iterator(), removedFiles),
+                logTree.inorderIterator());
+    }
+
+    /**
+     * Finds where the report of the repository merged with the log reaches a
+     * position. The number of repository words before that position is found
+     * by binary search, since the merged words are the repository words and
+     * the logged words missing from it, in order; the log tree then gives
+     * the rank of the word at the position.
+     * @param repository The mapped repository.
+     * @param logTree    The words read from the log.
+     * @param added      The logged words missing from the repository, in order.
+     * @param index      The position in the report.
+     * @return The positions to start at in the repository and in the log tree.
      */
-    private static void saveWordTree(BSTree<Word> wordTree) throws IOException {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(REPOSITORY_FILE))) {
-            oos.writeObject(wordTree);
+    private static int[] seek(MappedRepository repository, BSTree<Word> logTree, List<String> added, int index) {
+        index = Math.min(index, repository.size() + added.size());
+        int low = Math.max(0, index - added.size());
+        int high = Math.min(index, repository.size());
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (repository.get(mid).getWord().compareTo(added.get(index - mid - 1)) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        String next = low < repository.size() ? repository.get(low).getWord() : null;
+        if (index - low < added.size() && (next == null || added.get(index - low).compareTo(next) < 0)) {
+            next = added.get(index - low);
         }
+        return new int[]{low, next == null ? logTree.size() : logTree.rank(new Word(next))};
+    }
+
+    /**
+     * Prints only the words matching the query given on the command line. The
+     * matches are read twice, once to count them for the header and once to
+     * print the page, so they are never held all at once. Each time the
+     * repository is entered by binary search at the start of the query and
+     * the log tree by descending to it, and both are read only as far as the
+     * last matching word.
+     * @param repository The mapped repository, or null if there is none yet.
+     * @param logTree    The words read from the log.
+     * @throws IOException If the report cannot be written.
+     */
+    private static void printQuery(MappedRepository repository, BSTree<Word> logTree) throws IOException {
+        int size = count(queryMatches(repository, logTree));
+        Iterator<Word> matches = queryMatches(repository, logTree);
+        for (int i = 0; i < pageStart && matches.hasNext(); i++) {
+            matches.next();
+        }
+        printWords(size, matches);
+    }
+
+    /**
+     * Returns the words matching the query, from the repository merged with the log.
+     * @param repository The mapped repository, or null if there is none yet.
+     * @param logTree    The words read from the log.
+     * @return An iterator over the matching words in alphabetic order.
+     */
+    private static Iterator<Word> queryMatches(MappedRepository repository, BSTree<Word> logTree) {
+        Iterator<Word> logged = logTree.rangeIterator(query);
+        Iterator<Word> words = repository == null ? logged
+                : WordIndexer.mergedIterator(
+                        WordIndexer.withoutFiles(repository.iterator(queryStart), removedFiles), logged);
+        return new Iterator<Word>() {
+            private Word next = advance();
+
+            private Word advance() {
+                while (words.hasNext()) {
+                    Word word = words.next();
+                    int position = query.applyAsInt(word);
+                    if (position > 0) {
+                        return null;
+                    }
+                    if (position == 0) {
+                        return word;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Word next() throws NoSuchElementException {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more elements in iteration.");
+                }
+                Word word = next;
+                next = advance();
+                return word;
+            }
+        };
+    }
+
+    /**
+     * Prints a sequence of words in alphabetic order, up to the length of a
+     * page when one was asked for.
+     * @param size     The number of words.
+     * @param iterator The words, in alphabetic order, from the start of the page.
+     * @throws IOException If the report cannot be written.
+     */
+    private static void printWords(int size, Iterator<Word> iterator) throws IOException {
+        report.writeReport(size, iterator, pageLength);
     }
 
     /**
@@ -172,17 +440,63 @@ public class WordTracker {
      * @return true if arguments are valid, false otherwise.
      */
     private static boolean parseArgs(String[] args) {
-        if (args.length < 2 || args.length > 4) {
+        int firstOption = 0;
+        while (firstOption < args.length && !args[firstOption].startsWith("-")) {
+            firstOption++;
+        }
+        if (firstOption == args.length) {
             System.out.println("There were errors in the arguments");
             return false;
         }
 
-        fileInputName = args[0].toLowerCase();
-        for (int i = 1; i < args.length; i++) {
+        fileInputNames = Arrays.asList(args).subList(0, firstOption);
+        for (int i = firstOption; i < args.length; i++) {
             if (args[i].startsWith("-f")) {
-                fileOutputName = args[i + 1];
+                if (i + 1 == args.length) {
+                    System.out.println("There were errors in the arguments");
+                    return false;
+                }
+                fileOutputName = args[++i];
             } else if (args[i].startsWith("-p") && args[i].length() == 3) {
                 userOption = args[i].substring(2);
+            } else if (args[i].equals("-b")) {
+                balanced = true;
+            } else if (args[i].equals("-q")) {
+                if (i + 1 == args.length) {
+                    System.out.println("There were errors in the arguments");
+                    return false;
+                }
+                queryStart = args[++i];
+                query = Word.prefixPosition(queryStart);
+            } else if (args[i].equals("-r")) {
+                if (i + 2 >= args.length) {
+                    System.out.println("There were errors in the arguments");
+                    return false;
+                }
+                queryStart = args[++i];
+                query = Word.rangePosition(queryStart, args[++i]);
+            } else if (args[i].equals("-j")) {
+                parallelReport = true;
+            } else if (args[i].equals("-m")) {
+                offHeap = true;
+            } else if (args[i].equals("-u")) {
+                if (i + 1 == args.length) {
+                    System.out.println("There were errors in the arguments");
+                    return false;
+                }
+                unindexNames.add(args[++i]);
+            } else if (args[i].equals("-n")) {
+                if (i + 2 >= args.length) {
+                    System.out.println("There were errors in the arguments");
+                    return false;
+                }
+                try {
+                    pageStart = Math.max(0, Integer.parseInt(args[++i]) - 1);
+                    pageLength = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.out.println("There were errors in the arguments");
+                    return false;
+                }
             }
         }
         return true;
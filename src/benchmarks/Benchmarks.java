@@ -0,0 +1,501 @@
+package benchmarks;
+
+import application.MappedRepository;
+import application.MappedTokenizer;
+import application.RepositoryFile;
+import application.Tokenizer;
+import application.WordIndexer;
+import application.WordTokenizer;
+import exceptions.TreeException;
+import modules.Word;
+import utilities.AVLTree;
+import utilities.BSTree;
+import utilities.EytzingerTree;
+import utilities.Iterator;
+import utilities.RadixTree;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Measures the word trees and the WordTracker pipeline, so that changes to
+ * them can be compared. Every benchmark is run a few times to warm up the
+ * JIT and then measured over several rounds; the median round is reported.
+ *
+ * Tree benchmarks add, search and iterate words drawn from random, sorted
+ * and Zipfian distributions; searching and iterating are also measured on
+ * the read-only array layout of the same words. Pipeline benchmarks generate a text corpus of
+ * a given size and time splitting it into words with each tokenizer,
+ * indexing it and saving, loading and mapping the resulting repository.
+ * Given real text, the tokenizers are compared on it too, and the AVL tree
+ * and the radix tree are compared on indexing it, looking up its words,
+ * iterating them and the heap they retain.
+ *
+ * Results are appended to a CSV file, one line per benchmark:
+ * <pre>benchmark,structure,distribution,size,operations,median_ns,ops_per_sec</pre>
+ *
+ * Usage: {@code java benchmarks.Benchmarks [out=bench_output.txt] [sizes=10000,100000] [corpus=1,16] [text=dir]}
+ * where corpus sizes are in megabytes and text is a file or directory of text.
+ */
+public class Benchmarks {
+
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    /**
+     * A plain tree fed sorted words degenerates into a list and takes
+     * quadratic time, so it is only measured up to this size.
+     */
+    private static final int DEGENERATE_LIMIT = 20000;
+
+    /**
+     * Collects results of the benchmarks so they cannot be optimized away.
+     */
+    static volatile long sink;
+
+    private final PrintWriter results;
+
+    Benchmarks(PrintWriter results) {
+        this.results = results;
+    }
+
+    /**
+     * Runs the benchmarks.
+     * @param args Options of the form key=value, as described above.
+     * @throws IOException If the results or the corpus cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals > 0) {
+                options.put(arg.substring(0, equals), arg.substring(equals + 1));
+            }
+        }
+        File out = new File(options.getOrDefault("out", "bench_output.txt"));
+        boolean header = !out.exists();
+
+        try (PrintWriter results = new PrintWriter(new FileWriter(out, true))) {
+            if (header) {
+                results.println("benchmark,structure,distribution,size,operations,median_ns,ops_per_sec");
+            }
+            Benchmarks benchmarks = new Benchmarks(results);
+            for (String size : options.getOrDefault("sizes", "10000,100000").split(",")) {
+                benchmarks.runTreeBenchmarks(Integer.parseInt(size.trim()));
+            }
+            for (String megabytes : options.getOrDefault("corpus", "1").split(",")) {
+                benchmarks.runPipelineBenchmarks(Long.parseLong(megabytes.trim()) << 20);
+            }
+            if (options.containsKey("text")) {
+                benchmarks.runTextBenchmarks(new File(options.get("text")));
+            }
+        }
+        System.out.println("Results written to " + out.getPath());
+    }
+
+    /**
+     * The tree implementations being compared, by name.
+     * @return Suppliers of empty trees.
+     */
+    Map<String, Supplier<BSTree<Word>>> structures() {
+        Map<String, Supplier<BSTree<Word>>> structures = new LinkedHashMap<>();
+        structures.put("BSTree", BSTree::new);
+        structures.put("AVLTree", AVLTree::new);
+        return structures;
+    }
+
+    /**
+     * Runs the add, search and iteration benchmarks for every tree and distribution.
+     * @param size The number of words to add.
+     */
+    void runTreeBenchmarks(int size) {
+        Map<String, String[]> distributions = new LinkedHashMap<>();
+        distributions.put("random", WordGenerator.random(size, 42));
+        distributions.put("sorted", WordGenerator.sorted(size, 42));
+        distributions.put("zipfian", WordGenerator.zipfian(size, size / 4 + 1, 42));
+
+        for (Map.Entry<String, Supplier<BSTree<Word>>> structure : structures().entrySet()) {
+            for (Map.Entry<String, String[]> distribution : distributions.entrySet()) {
+                if (structure.getKey().equals("BSTree") && distribution.getKey().equals("sorted") && size > DEGENERATE_LIMIT) {
+                    System.out.println("Skipping BSTree/sorted/" + size + ": quadratic on sorted input");
+                    continue;
+                }
+                runTreeBenchmark(structure.getKey(), structure.getValue(), distribution.getKey(), distribution.getValue());
+            }
+        }
+        for (Map.Entry<String, String[]> distribution : distributions.entrySet()) {
+            runSnapshotBenchmark(distribution.getKey(), distribution.getValue());
+        }
+    }
+
+    private void runTreeBenchmark(String name, Supplier<BSTree<Word>> supplier, String distribution, String[] keys) {
+        Word[] words = new Word[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            words[i] = new Word(keys[i]);
+        }
+
+        measure("add", name, distribution, keys.length, keys.length, () -> {
+            BSTree<Word> tree = supplier.get();
+            for (Word word : words) {
+                tree.add(word);
+            }
+            return tree.size();
+        });
+
+        BSTree<Word> tree = supplier.get();
+        for (Word word : words) {
+            tree.add(word);
+        }
+        System.out.println(name + "/" + distribution + "/" + keys.length + ": " + tree.shape());
+        Word[] probes = words.clone();
+        Collections.shuffle(Arrays.asList(probes), new Random(7));
+
+        measure("search", name, distribution, keys.length, probes.length, () -> {
+            long found = 0;
+            try {
+                for (Word probe : probes) {
+                    found += tree.search(probe) != null ? 1 : 0;
+                }
+            } catch (TreeException e) {
+                throw new IllegalStateException(e);
+            }
+            return found;
+        });
+
+        measure("iterate", name, distribution, keys.length, tree.size(), () -> {
+            long length = 0;
+            Iterator<Word> iterator = tree.inorderIterator();
+            while (iterator.hasNext()) {
+                length += iterator.next().getWord().length();
+            }
+            return length;
+        });
+
+        measure("stream", name, distribution, keys.length, tree.size(), () ->
+                tree.stream().mapToLong(word -> word.getWord().length()).sum());
+        measure("parallelStream", name, distribution, keys.length, tree.size(), () ->
+                tree.parallelStream().mapToLong(word -> word.getWord().length()).sum());
+    }
+
+    /**
+     * Measures searching and iterating the read-only array layout, built from
+     * the same words as the pointer trees, so the two can be compared.
+     */
+    private void runSnapshotBenchmark(String distribution, String[] keys) {
+        BSTree<Word> source = new AVLTree<>();
+        for (String key : keys) {
+            source.add(new Word(key));
+        }
+        EytzingerTree<Word> tree = new EytzingerTree<>(source, Word::getPrefix);
+        Word[] probes = new Word[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            probes[i] = new Word(keys[i]);
+        }
+        Collections.shuffle(Arrays.asList(probes), new Random(7));
+
+        measure("search", "EytzingerTree", distribution, keys.length, probes.length, () -> {
+            long found = 0;
+            for (Word probe : probes) {
+                found += tree.find(probe) != null ? 1 : 0;
+            }
+            return found;
+        });
+
+        measure("iterate", "EytzingerTree", distribution, keys.length, tree.size(), () -> {
+            long length = 0;
+            Iterator<Word> iterator = tree.inorderIterator();
+            while (iterator.hasNext()) {
+                length += iterator.next().getWord().length();
+            }
+            return length;
+        });
+    }
+
+    /**
+     * Runs the pipeline benchmarks on a generated corpus.
+     * @param bytes The approximate size of the corpus.
+     * @throws IOException If the corpus or the repository cannot be written.
+     */
+    void runPipelineBenchmarks(long bytes) throws IOException {
+        File corpus = File.createTempFile("corpus", ".txt");
+        File repository = File.createTempFile("repository", ".ser");
+        corpus.deleteOnExit();
+        repository.deleteOnExit();
+        WordGenerator.writeCorpus(corpus, bytes, 42);
+        String size = String.valueOf(corpus.length());
+
+        measureTokenizers("corpus", List.of(corpus), corpus.length());
+        WordTokenizer tokenizer = new WordTokenizer();
+        measure("processInputFile", "AVLTree", "corpus", corpus.length(), corpus.length(), () -> {
+            BSTree<Word> tree = new AVLTree<>();
+            WordIndexer.processInputFile(corpus, tree, corpus.getPath(), tokenizer);
+            return tree.size();
+        });
+
+        BSTree<Word> tree = new AVLTree<>();
+        WordIndexer.processInputFile(corpus, tree, corpus.getPath(), tokenizer);
+
+        measure("saveRepository", "RepositoryFile", "corpus", corpus.length(), tree.size(), () -> {
+            RepositoryFile.write(tree, repository);
+            return repository.length();
+        });
+        measure("loadRepository", "RepositoryFile", "corpus", corpus.length(), tree.size(), () -> {
+            return RepositoryFile.read(repository).size();
+        });
+        measure("mapRepository", "MappedRepository", "corpus", corpus.length(), tree.size(), () -> {
+            long count = 0;
+            Iterator<Word> iterator = MappedRepository.open(repository).iterator();
+            while (iterator.hasNext()) {
+                count += iterator.next().getCount();
+            }
+            return count;
+        });
+        System.out.println("Corpus of " + size + " bytes: " + tree.size() + " words, repository of "
+                + repository.length() + " bytes");
+    }
+
+    /**
+     * Compares indexing real text into an AVL tree and into a radix tree: the
+     * time to index it, the time to look up every distinct word, the time to
+     * iterate the words in order, and the heap each index retains.
+     * @param text A text file, or a directory whose regular files are read.
+     * @throws IOException If the text cannot be read.
+     */
+    void runTextBenchmarks(File text) throws IOException {
+        List<File> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(text.toPath())) {
+            paths.filter(Files::isRegularFile).sorted().map(Path::toFile).forEach(files::add);
+        }
+        long bytes = 0;
+        for (File file : files) {
+            bytes += file.length();
+        }
+        measureTokenizers("text", files, bytes);
+        WordTokenizer tokenizer = new WordTokenizer();
+
+        Supplier<BSTree<Word>> avlIndex = () -> {
+            BSTree<Word> tree = new AVLTree<>();
+            for (File file : files) {
+                try {
+                    WordIndexer.processInputFile(file, tree, file.getPath(), tokenizer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return tree;
+        };
+        Supplier<RadixTree<Word>> radixIndex = () -> {
+            RadixTree<Word> tree = new RadixTree<>();
+            for (File file : files) {
+                try {
+                    WordIndexer.processInputFile(file, tree, file.getPath(), tokenizer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return tree;
+        };
+        measure("index", "AVLTree", "text", bytes, bytes, () -> avlIndex.get().size());
+        measure("index", "RadixTree", "text", bytes, bytes, () -> radixIndex.get().size());
+
+        long before = usedHeap();
+        BSTree<Word> avlTree = avlIndex.get();
+        long avlBytes = usedHeap() - before;
+        before = usedHeap();
+        RadixTree<Word> radixTree = radixIndex.get();
+        long radixBytes = usedHeap() - before;
+
+        List<String> keys = new ArrayList<>();
+        Iterator<Word> iterator = avlTree.inorderIterator();
+        while (iterator.hasNext()) {
+            keys.add(iterator.next().getWord());
+        }
+        Collections.shuffle(keys, new Random(7));
+        Word[] probes = new Word[keys.size()];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = new Word(keys.get(i));
+        }
+
+        measure("search", "AVLTree", "text", bytes, probes.length, () -> {
+            long found = 0;
+            for (Word probe : probes) {
+                found += avlTree.search(probe) != null ? 1 : 0;
+            }
+            return found;
+        });
+        measure("search", "RadixTree", "text", bytes, keys.size(), () -> {
+            long found = 0;
+            for (String key : keys) {
+                found += radixTree.get(key) != null ? 1 : 0;
+            }
+            return found;
+        });
+        measure("iterate", "AVLTree", "text", bytes, avlTree.size(), () -> {
+            long length = 0;
+            Iterator<Word> words = avlTree.inorderIterator();
+            while (words.hasNext()) {
+                length += words.next().getWord().length();
+            }
+            return length;
+        });
+        measure("iterate", "RadixTree", "text", bytes, radixTree.size(), () -> {
+            long length = 0;
+            Iterator<Word> words = radixTree.inorderIterator();
+            while (words.hasNext()) {
+                length += words.next().getWord().length();
+            }
+            return length;
+        });
+        System.out.println("Text of " + bytes + " bytes in " + files.size() + " files: " + avlTree.size()
+                + " words; heap retained by AVLTree " + avlBytes + " bytes, by RadixTree " + radixBytes + " bytes");
+    }
+
+    /**
+     * Returns the heap in use after collecting garbage, to estimate the size
+     * of a structure built in between two calls.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Measures how fast each tokenizer splits files into words.
+     * @param distribution The name of the input.
+     * @param files        The files to split.
+     * @param bytes        The total size of the files.
+     */
+    void measureTokenizers(String distribution, List<File> files, long bytes) {
+        for (Tokenizer tokenizer : new Tokenizer[]{new WordTokenizer(), new MappedTokenizer()}) {
+            measure("tokenize", tokenizer.getClass().getSimpleName(), distribution, bytes, bytes, () -> {
+                long[] words = new long[1];
+                for (File file : files) {
+                    tokenizer.tokenize(file, (word, lineNumber) -> words[0] += word.length());
+                }
+                return words[0];
+            });
+        }
+    }
+
+    /**
+     * Runs a benchmark through the warm-up and measured rounds and records the median round.
+     * @param benchmark    The name of the benchmark.
+     * @param structure    The structure being measured.
+     * @param distribution The input the structure is measured on.
+     * @param size         The size of the input.
+     * @param operations   The number of operations in one round.
+     * @param body         One round of the benchmark, returning a value to keep.
+     */
+    void measure(String benchmark, String structure, String distribution, long size, long operations, Body body) {
+        long[] times = new long[MEASURED_ROUNDS];
+        try {
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                sink += body.run();
+            }
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                long start = System.nanoTime();
+                sink += body.run();
+                times[i] = System.nanoTime() - start;
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(benchmark + " failed", e);
+        }
+        Arrays.sort(times);
+        long median = times[MEASURED_ROUNDS / 2];
+        double opsPerSecond = operations * 1e9 / Math.max(1, median);
+
+        String line = String.join(",", benchmark, structure, distribution, String.valueOf(size),
+                String.valueOf(operations), String.valueOf(median), String.format(Locale.ROOT, "%.1f", opsPerSecond));
+        results.println(line);
+        results.flush();
+        System.out.println(line);
+    }
+
+    /**
+     * One round of a benchmark.
+     */
+    @FunctionalInterface
+    interface Body {
+        long run() throws Exception;
+    }
+
+    /**
+     * Generates the words and text the benchmarks run on. Words are random
+     * strings of lower-case letters; a fixed seed keeps runs comparable.
+     */
+    static final class WordGenerator {
+
+        private WordGenerator() {
+        }
+
+        static String[] random(int count, long seed) {
+            Random random = new Random(seed);
+            Set<String> words = new LinkedHashSet<>();
+            while (words.size() < count) {
+                words.add(randomWord(random));
+            }
+            return words.toArray(new String[0]);
+        }
+
+        static String[] sorted(int count, long seed) {
+            String[] words = random(count, seed);
+            Arrays.sort(words);
+            return words;
+        }
+
+        /**
+         * Draws words from a vocabulary with Zipf's law, as in natural text:
+         * the k-th most common word appears with probability proportional to 1/k.
+         */
+        static String[] zipfian(int count, int vocabulary, long seed) {
+            String[] words = random(vocabulary, seed);
+            double[] cumulative = new double[vocabulary];
+            double total = 0;
+            for (int k = 0; k < vocabulary; k++) {
+                total += 1.0 / (k + 1);
+                cumulative[k] = total;
+            }
+            Random random = new Random(seed + 1);
+            String[] drawn = new String[count];
+            for (int i = 0; i < count; i++) {
+                int k = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+                drawn[i] = words[Math.min(vocabulary - 1, k < 0 ? -k - 1 : k)];
+            }
+            return drawn;
+        }
+
+        static void writeCorpus(File file, long bytes, long seed) throws IOException {
+            String[] words = zipfian(1 << 16, 50000, seed);
+            Random random = new Random(seed + 2);
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+                long written = 0;
+                while (written < bytes) {
+                    StringBuilder line = new StringBuilder();
+                    int wordsOnLine = 5 + random.nextInt(10);
+                    for (int i = 0; i < wordsOnLine; i++) {
+                        line.append(words[random.nextInt(words.length)]).append(i % 4 == 3 ? ", " : " ");
+                    }
+                    line.append(".\n");
+                    out.write(line.toString());
+                    written += line.length();
+                }
+            }
+        }
+
+        private static String randomWord(Random random) {
+            char[] chars = new char[3 + random.nextInt(8)];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) ('a' + random.nextInt(26));
+            }
+            return new String(chars);
+        }
+    }
+}
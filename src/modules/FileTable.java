@@ -0,0 +1,76 @@
+package modules;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class description: This class assigns every file name a small number, so
+ * that a word location stores the number instead of the name. A name is
+ * kept once however many words and repository records refer to it, and
+ * locations are matched to files by comparing numbers.
+ *
+ * The numbers are only meaningful within one run of the program; the
+ * repository stores file names and numbers them again when it is read.
+ *
+ * @author Isaac, Jayden, David
+ */
+public final class FileTable {
+
+    private static final Map<String, Integer> ids = new HashMap<>();
+
+    /**
+     * The file names by number. The array is replaced when it grows, and a
+     * number is only handed out after its name is stored.
+     */
+    private static volatile String[] names = new String[16];
+    private static int count;
+
+    private FileTable() {
+    }
+
+    /**
+     * Description: Returns the number of a file name, numbering it if it has not been seen.
+     * @param fileName the file name
+     * @return the number of the file name
+     */
+    public static synchronized int idOf(String fileName) {
+        Integer id = ids.get(fileName);
+        if (id == null) {
+            id = count;
+            String[] current = names;
+            if (count == current.length) {
+                current = Arrays.copyOf(current, count * 2);
+            }
+            current[count++] = fileName;
+            names = current;
+            ids.put(fileName, id);
+        }
+        return id;
+    }
+
+    /**
+     * Description: Returns the number of a file name without numbering it.
+     * @param fileName the file name
+     * @return the number of the file name, or -1 if it has not been seen
+     */
+    public static synchronized int find(String fileName) {
+        Integer id = ids.get(fileName);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Description: Returns the file name with a number.
+     * @param id the number of the file name
+     * @return the file name
+     * @throws IndexOutOfBoundsException if no file name has the number
+     */
+    public static String nameOf(int id) {
+        String[] current = names;
+        String name = id >= 0 && id < current.length ? current[id] : null;
+        if (name == null) {
+            throw new IndexOutOfBoundsException("No file name with number " + id + ".");
+        }
+        return name;
+    }
+}
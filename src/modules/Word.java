@@ -1,8 +1,14 @@
 package modules;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntBiFunction;
+import java.util.function.ToIntFunction;
 
 /**
  * Class description: This class represents a word in the tree.
@@ -11,16 +17,112 @@ import java.util.List;
  */
 public class Word implements Comparable<Word>, Serializable {
 
+    /**
+     * The serial version UID, pinned to the value computed for the original
+     * class so that repositories serialized by earlier versions still load.
+     */
+    private static final long serialVersionUID = -3161331770164425528L;
+
+    /**
+     * Description: Orders words against a plain key, such as a token still in
+     * the tokenizer's buffer, so the tree can be searched for it without
+     * building a String or a Word first. The prefix of the key is computed
+     * once, so that most nodes of a search are passed by comparing prefixes
+     * alone. One order is reused for every token of a pass, so a search
+     * allocates nothing; it is not safe to share between threads.
+     */
+    public static final class KeyOrder implements ToIntBiFunction<Word, CharSequence> {
+        private long keyPrefix;
+
+        /**
+         * Description: Prepares the order for the next key to search for.
+         * @param key the key the tree is searched for; the order is only valid for it
+         * @return this order
+         */
+        public KeyOrder of(CharSequence key) {
+            keyPrefix = prefix(key);
+            return this;
+        }
+
+        @Override
+        public int applyAsInt(Word word, CharSequence key) {
+            return word.compareTo(keyPrefix, key);
+        }
+    }
+
+    /**
+     * Description: Packs the first eight characters of a key into a long, one
+     * Latin-1 byte per character, big-endian and padded with zeros, so that
+     * comparing two prefixes as unsigned longs orders the keys as String does
+     * whenever the prefixes differ. From the first character beyond Latin-1
+     * onwards every byte is 0xFF, which keeps that order for any text.
+     * @param key the key to take the prefix of
+     * @return the prefix of the key
+     */
+    public static long prefix(CharSequence key) {
+        int length = Math.min(key.length(), Long.BYTES);
+        long prefix = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            int c = i < length ? key.charAt(i) : 0;
+            if (c > 0xFF) {
+                return prefix << (Byte.SIZE * (Long.BYTES - i)) | -1L >>> (Byte.SIZE * i);
+            }
+            prefix = prefix << Byte.SIZE | c;
+        }
+        return prefix;
+    }
+
+    /**
+     * Description: Places words relative to the run of words starting with a
+     * prefix, for a tree's rangeIterator.
+     * @param prefix the prefix of the words wanted
+     * @return negative for words before the run, zero inside it, positive after it
+     */
+    public static ToIntFunction<Word> prefixPosition(String prefix) {
+        return word -> word.getWord().startsWith(prefix) ? 0 : word.getWord().compareTo(prefix);
+    }
+
+    /**
+     * Description: Places words relative to the words between two bounds,
+     * inclusive, for a tree's rangeIterator.
+     * @param from the first word wanted
+     * @param to   the last word wanted
+     * @return negative for words before from, zero between the bounds, positive after to
+     */
+    public static ToIntFunction<Word> rangePosition(String from, String to) {
+        return word -> word.getWord().compareTo(from) < 0 ? -1 : word.getWord().compareTo(to) > 0 ? 1 : 0;
+    }
+
+    /**
+     * Description: Number of locations a word can have before its locations
+     * are indexed by file name rather than scanned.
+     */
+    private static final int INDEX_THRESHOLD = 8;
+
     private String word;
     private List<WordLocation> wordLocations;
     private int count;
 
+    /**
+     * Description: The prefix of the word, which decides most comparisons
+     * without reading the word itself.
+     */
+    private transient long prefix;
+
+    /**
+     * Description: The locations of the word by file number, built once the
+     * word appears in more than INDEX_THRESHOLD files. The list of locations
+     * stays the record of their order.
+     */
+    private transient Map<Integer, WordLocation> locationIndex;
+
     /**
      * Description: This constructor creates a new word object.
      * @param word the word to be created
      */
     public Word(String word) {
         this.word = word;
+        this.prefix = prefix(word);
         this.wordLocations = new ArrayList<>();
         count = 0;
     }
@@ -31,26 +133,117 @@ public class Word implements Comparable<Word>, Serializable {
      * @param fileName  the file name the word is in
      */
     public void addCount(int lineNumber, String fileName) {
-        if(wordLocations.size() == 0) {
-            WordLocation wl = new WordLocation(fileName);
-            wl.getLineNumbers().add(lineNumber);
-            wordLocations.add(wl);
+        addCount(lineNumber, FileTable.idOf(fileName));
+    }
+
+    /**
+     * Description: This method adds a new word location to the word, for a
+     * file already numbered in the FileTable.
+     * @param lineNumber the line number of the word
+     * @param fileId     the number of the file name the word is in
+     */
+    public void addCount(int lineNumber, int fileId) {
+        if(findOrAddLocation(fileId).addLineNumber(lineNumber)) {
+            count++;
+        }
+    }
+
+    /**
+     * Description: This method adds the locations of another occurrence of the
+     * same word, such as the one read from a different file, to this word.
+     * @param other the word whose locations are added
+     */
+    public void merge(Word other) {
+        for (WordLocation wl : other.getWordLocations()) {
+            WordLocation target = findOrAddLocation(wl.getFileId());
+            wl.forEachLineNumber(lineNumber -> {
+                if (target.addLineNumber(lineNumber)) {
+                    count++;
+                }
+            });
+        }
+    }
+
+    /**
+     * Description: This method removes the locations of the word in a file,
+     * such as one that was deleted or is about to be read again.
+     * @param fileName the file name whose locations are removed
+     * @return true if the word was found in the file
+     */
+    public boolean removeLocation(String fileName) {
+        int fileId = FileTable.find(fileName);
+        return fileId >= 0 && removeLocation(fileId);
+    }
+
+    /**
+     * Description: This method removes the locations of the word in a file
+     * already numbered in the FileTable. Words found in many files look the
+     * file up in their map from file number to location.
+     * @param fileId the number of the file name whose locations are removed
+     * @return true if the word was found in the file
+     */
+    public boolean removeLocation(int fileId) {
+        WordLocation wl = null;
+        if(locationIndex != null) {
+            wl = locationIndex.remove(fileId);
+            if(wl == null) {
+                return false;
+            }
+        }
+        for(int i = wordLocations.size() - 1; i >= 0; i--) {
+            if(wl == null ? wordLocations.get(i).getFileId() == fileId : wordLocations.get(i) == wl) {
+                wl = wordLocations.remove(i);
+                count -= wl.getLineCount();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Description: This method finds the location of the word in a file, adding
+     * an empty one if the word has not been seen in that file. The most recent
+     * location is checked first, since a file is read from top to bottom; words
+     * found in many files use a map from file number to location.
+     * @param fileId the number of the file name the word is in
+     * @return the location of the word in the file
+     */
+    private WordLocation findOrAddLocation(int fileId) {
+        int size = wordLocations.size();
+        if(size > 0) {
+            WordLocation last = wordLocations.get(size - 1);
+            if(last.getFileId() == fileId) {
+                return last;
+            }
+        }
+
+        WordLocation wl = null;
+        if(size <= INDEX_THRESHOLD) {
+            for(int i = 0; i < size - 1 && wl == null; i++) {
+                if(wordLocations.get(i).getFileId() == fileId) {
+                    wl = wordLocations.get(i);
+                }
+            }
         } else {
-            for(WordLocation wl : wordLocations) {
-                if(wl.getFileName().equals(fileName)) {
-                    if(!wl.getLineNumbers().contains(lineNumber)) {
-                        wl.getLineNumbers().add(lineNumber);
-                        count++;
-                    }
-                    return;
+            if(locationIndex == null) {
+                locationIndex = new HashMap<>(size * 2);
+                for(WordLocation location : wordLocations) {
+                    locationIndex.putIfAbsent(location.getFileId(), location);
                 }
             }
-            WordLocation wl = new WordLocation(fileName);
-            wl.getLineNumbers().add(lineNumber);
+            wl = locationIndex.get(fileId);
+        }
+
+        if(wl == null) {
+            wl = new WordLocation(fileId);
             wordLocations.add(wl);
+            if(locationIndex != null) {
+                locationIndex.put(fileId, wl);
+            }
         }
-        count++;
+        return wl;
     }
+
     /**
      * Description: This method returns the word.
      * @return the word of the object
@@ -61,6 +254,16 @@ public class Word implements Comparable<Word>, Serializable {
 
     public void setWord(String word) {
         this.word = word;
+        this.prefix = prefix(word);
+    }
+
+    /**
+     * Description: This method returns the prefix of the word, as computed by
+     * prefix(word), without reading the word.
+     * @return the prefix of the word
+     */
+    public long getPrefix() {
+        return prefix;
     }
 
     public List<WordLocation> getWordLocations() {
@@ -69,6 +272,7 @@ public class Word implements Comparable<Word>, Serializable {
 
     public void setWordLocations(List<WordLocation> wordLocations) {
         this.wordLocations = wordLocations;
+        this.locationIndex = null;
     }
 
     public int getCount() {
@@ -79,8 +283,41 @@ public class Word implements Comparable<Word>, Serializable {
         this.count = count;
     }
 
+    /**
+     * Description: Compares the words by their prefixes, and only reads the
+     * words themselves when the prefixes are equal.
+     * @param thatWord the word to compare with
+     * @return negative, zero or positive as this word is before, equal to or after the other
+     */
     @Override
     public int compareTo(Word thatWord) {
-        return this.word.compareTo(thatWord.getWord());
+        if (this.prefix != thatWord.prefix) {
+            return Long.compareUnsigned(this.prefix, thatWord.prefix);
+        }
+        return this.word.compareTo(thatWord.word);
+    }
+
+    /**
+     * Description: Compares the word with a key whose prefix is already known.
+     * @param keyPrefix the prefix of the key
+     * @param key       the key to compare with
+     * @return negative, zero or positive as this word is before, equal to or after the key
+     */
+    public int compareTo(long keyPrefix, CharSequence key) {
+        if (this.prefix != keyPrefix) {
+            return Long.compareUnsigned(this.prefix, keyPrefix);
+        }
+        return CharSequence.compare(this.word, key);
+    }
+
+    /**
+     * Description: Restores a word and computes its prefix, which is not serialized.
+     * @param in the stream to read from
+     * @throws IOException if there is an I/O issue
+     * @throws ClassNotFoundException if the class of a field cannot be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        prefix = prefix(word);
     }
 }
\ No newline at end of file
@@ -1,13 +1,19 @@
 package modules;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.IntConsumer;
 
 /**
  * Class description: This class is used to store the location of a word in a
- * document. It stores the document name and the location of the word in the
- * document.
+ * document. It stores the number of the document name in the FileTable and
+ * the location of the word in the document. When serialized it writes the
+ * document name itself, as earlier versions did.
  *
  * @author Isaac, Jayden, David
  */
@@ -19,13 +25,27 @@ public class WordLocation implements Serializable {
     private static final long serialVersionUID = 1L;
 
     /**
-     * the filename uses to retrieve information.
+     * The fields written when a location is serialized: the file name rather
+     * than its number, which is only meaningful within one run.
      */
-    private String fileName;
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("fileName", String.class),
+            new ObjectStreamField("lines", int[].class),
+            new ObjectStreamField("lineCount", int.class)
+    };
+
+    /**
+     * the number of the file name in the FileTable.
+     */
+    private int fileId;
     /**
-     * the line number of the word in the file.
+     * the line numbers of the word in the file, in ascending order.
      */
-    private List<Integer> lineNumbers;
+    private int[] lines;
+    /**
+     * the number of line numbers in use at the start of the array.
+     */
+    private int lineCount;
 
     /**
      * Constructor of the WordLocation class.
@@ -33,8 +53,17 @@ public class WordLocation implements Serializable {
      * @param fileName the name of the file
      */
     public WordLocation(String fileName) {
-        this.fileName = fileName;
-        this.lineNumbers = new ArrayList<>();
+        this(FileTable.idOf(fileName));
+    }
+
+    /**
+     * Constructor of the WordLocation class for a file already numbered.
+     *
+     * @param fileId the number of the file name in the FileTable
+     */
+    public WordLocation(int fileId) {
+        this.fileId = fileId;
+        this.lines = new int[1];
     }
 
     /**
@@ -43,33 +72,146 @@ public class WordLocation implements Serializable {
      * @return the file name
      */
     public String getFileName() {
-        return fileName;
+        return FileTable.nameOf(fileId);
     }
 
     /**
-     * Get the line number.
+     * Get the number of the file name.
+     *
+     * @return the number of the file name in the FileTable
+     */
+    public int getFileId() {
+        return fileId;
+    }
+
+    /**
+     * Set the file name.
      *
      * @param fileName the name of the file
      */
     public void setFileName(String fileName) {
-        this.fileName = fileName;
+        this.fileId = FileTable.idOf(fileName);
     }
 
     /**
-     * Get the line number.
+     * Add a line number, keeping the line numbers in ascending order. Adding a
+     * line after the last one, as a file is read from top to bottom, takes
+     * constant time.
      *
+     * @param lineNumber the line number to add
+     * @return true if the line was added, false if it was already recorded
+     */
+    public boolean addLineNumber(int lineNumber) {
+        int index;
+        if (lineCount == 0 || lines[lineCount - 1] < lineNumber) {
+            index = lineCount;
+        } else if (lines[lineCount - 1] == lineNumber) {
+            return false;
+        } else {
+            index = Arrays.binarySearch(lines, 0, lineCount, lineNumber);
+            if (index >= 0) {
+                return false;
+            }
+            index = -index - 1;
+        }
+        if (lineCount == lines.length) {
+            lines = Arrays.copyOf(lines, lineCount + (lineCount >> 1) + 1);
+        }
+        System.arraycopy(lines, index, lines, index + 1, lineCount - index);
+        lines[index] = lineNumber;
+        lineCount++;
+        return true;
+    }
+
+    /**
+     * Get the number of line numbers.
+     *
+     * @return the number of lines the word is on
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Get one line number.
+     *
+     * @param index the position of the line number, from 0 to getLineCount() - 1
      * @return the line number
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int getLineNumber(int index) {
+        if (index < 0 || index >= lineCount) {
+            throw new IndexOutOfBoundsException("No line number at index " + index + ".");
+        }
+        return lines[index];
+    }
+
+    /**
+     * Pass every line number, in ascending order, to an action.
+     *
+     * @param action the action to perform for each line number
+     */
+    public void forEachLineNumber(IntConsumer action) {
+        for (int i = 0; i < lineCount; i++) {
+            action.accept(lines[i]);
+        }
+    }
+
+    /**
+     * Get the line numbers.
+     *
+     * @return a copy of the line numbers, in ascending order
+     */
+    public int[] getLineNumbers() {
+        return Arrays.copyOf(lines, lineCount);
+    }
+
+    /**
+     * Set the line numbers.
+     *
+     * @param lineNumbers the line numbers, in any order
+     */
+    public void setLineNumbers(int[] lineNumbers) {
+        lines = new int[Math.max(1, lineNumbers.length)];
+        lineCount = 0;
+        for (int lineNumber : lineNumbers) {
+            addLineNumber(lineNumber);
+        }
+    }
+
+    /**
+     * Save a location with its file name in place of the file number.
+     *
+     * @param out the stream to write to
+     * @throws IOException if there is an I/O issue
      */
-    public List<Integer> getLineNumbers() {
-        return lineNumbers;
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("fileName", getFileName());
+        fields.put("lines", lines);
+        fields.put("lineCount", lineCount);
+        out.writeFields();
     }
 
     /**
-     * Set the line number.
+     * Restore a location, numbering its file name and converting the list of
+     * boxed line numbers written by earlier versions of this class.
      *
-     * @param lineNumbers the line number
+     * @param in the stream to read from
+     * @throws IOException if there is an I/O issue
+     * @throws ClassNotFoundException if the class of a field cannot be found
      */
-    public void setLineNumbers(List<Integer> lineNumbers) {
-        this.lineNumbers = lineNumbers;
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        fileId = FileTable.idOf((String) fields.get("fileName", null));
+        lines = (int[]) fields.get("lines", null);
+        lineCount = fields.get("lineCount", 0);
+        if (lines == null) {
+            lines = new int[1];
+            for (int lineNumber : (List<Integer>) fields.get("lineNumbers", null)) {
+                addLineNumber(lineNumber);
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,216 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import exceptions.TreeException;
+import utilities.AVLTree;
+import utilities.Iterator;
+
+public class AVLTreeTests {
+
+    private AVLTree<Integer> tree;
+
+    @Before
+    public void setUp() {
+        tree = new AVLTree<>();
+        for (int i = 1; i <= 7; i++) {
+            tree.add(i);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        tree.clear();
+    }
+
+    @Test
+    public void testGetRoot() throws TreeException {
+        assertEquals("The tree was not rebalanced around the middle element", Integer.valueOf(4), tree.getRoot().getElement());
+    }
+
+    @Test
+    public void testGetHeight() {
+        assertEquals("The getHeight method implemented incorrectly", 3, tree.getHeight());
+    }
+
+    @Test
+    public void testHeightStaysLogarithmicForSortedInput() {
+        tree.clear();
+        for (int i = 0; i < 100000; i++) {
+            tree.add(i);
+        }
+        assertEquals("The size method is incorrectly implemented", 100000, tree.size());
+        assertTrue("The tree degenerated on sorted input", tree.getHeight() <= 25);
+    }
+
+    @Test
+    public void testComputeIfAbsentKeepsBalance() {
+        tree.clear();
+        for (int i = 0; i < 100000; i++) {
+            tree.computeIfAbsent(i, Integer::compare, key -> key);
+        }
+        assertEquals("The size method is incorrectly implemented", 100000, tree.size());
+        assertTrue("The tree degenerated on sorted input", tree.getHeight() <= 25);
+    }
+
+    @Test
+    public void testAddDuplicate() {
+        assertFalse("A duplicate element was added", tree.add(4));
+        assertEquals("The size changed after adding a duplicate", 7, tree.size());
+    }
+
+    @Test
+    public void testSearch() throws TreeException {
+        for (int i = 1; i <= 7; i++) {
+            assertNotNull("The search method is incorrectly implemented", tree.search(i));
+        }
+        assertNull("The search method found a missing element", tree.search(8));
+    }
+
+    @Test
+    public void testInorderIterator() {
+        Integer[] expected = new Integer[]{1, 2, 3, 4, 5, 6, 7};
+        assertArrayEquals("The inorderIterator method is incorrectly implemented", expected, getIteratorContents(tree.inorderIterator()));
+    }
+
+    @Test
+    public void testPreorderIterator() {
+        Integer[] expected = new Integer[]{4, 2, 1, 3, 6, 5, 7};
+        assertArrayEquals("The preorderIterator method is incorrectly implemented", expected, getIteratorContents(tree.preorderIterator()));
+    }
+
+    @Test
+    public void testDescendingInsertion() throws TreeException {
+        tree.clear();
+        for (int i = 7; i >= 1; i--) {
+            tree.add(i);
+        }
+        assertEquals("The tree was not rebalanced around the middle element", Integer.valueOf(4), tree.getRoot().getElement());
+        assertEquals("The getHeight method implemented incorrectly", 3, tree.getHeight());
+    }
+
+    @Test
+    public void testRankAndSelectAfterRotations() {
+        tree.clear();
+        java.util.Random random = new java.util.Random(3);
+        java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+        for (int i = 0; i < 2000; i++) {
+            int value = random.nextInt(5000);
+            tree.add(value * 2);
+            expected.add(value * 2);
+        }
+        Integer[] sorted = expected.toArray(new Integer[0]);
+        for (int i = 0; i < sorted.length; i++) {
+            assertEquals("The select method is incorrectly implemented", sorted[i], tree.select(i));
+            assertEquals("The rank method is incorrectly implemented", i, tree.rank(sorted[i]));
+            assertEquals("The rank method is incorrectly implemented", i, tree.rank(sorted[i] - 1));
+        }
+        assertEquals("The rank method is incorrectly implemented", sorted.length, tree.rank(10001));
+    }
+
+    @Test
+    public void testRemoveKeepsBalance() {
+        tree.clear();
+        java.util.Random random = new java.util.Random(11);
+        java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+        for (int i = 0; i < 4000; i++) {
+            int value = random.nextInt(1000);
+            if (random.nextInt(3) == 0) {
+                assertEquals("The remove method is incorrectly implemented", expected.remove(value), tree.remove(value));
+            } else {
+                assertEquals("The add method is incorrectly implemented", expected.add(value), tree.add(value));
+            }
+        }
+        assertEquals("The size method is incorrectly implemented", expected.size(), tree.size());
+        assertArrayEquals("The remove method is incorrectly implemented",
+                expected.toArray(new Integer[0]), getIteratorContents(tree.inorderIterator()));
+        assertTrue("The tree is not balanced", tree.getHeight() <= 1.45 * Math.log(expected.size() + 2) / Math.log(2));
+        assertEquals("The height is not cached correctly", tree.getHeight(), getRootHeight());
+        assertEquals("The subtree sizes are incorrect", expected.first(), tree.select(0));
+    }
+
+    @Test
+    public void testBuildFromSortedList() throws TreeException {
+        for (int count = 0; count <= 70; count++) {
+            java.util.List<Integer> sorted = new java.util.ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                sorted.add(i * 3);
+            }
+            AVLTree<Integer> built = new AVLTree<>(sorted);
+            assertEquals("The size is incorrect", count, built.size());
+            assertArrayEquals("The elements are out of order", sorted.toArray(new Integer[0]), getIteratorContents(built.inorderIterator()));
+            int expectedHeight = 32 - Integer.numberOfLeadingZeros(count);
+            assertEquals("The tree is not perfectly balanced", expectedHeight, built.getHeight());
+            if (count > 0) {
+                assertEquals("The cached height is incorrect", built.getRoot().getHeight(), built.getHeight());
+                assertEquals("The subtree sizes are incorrect", Integer.valueOf((count - 1) * 3), built.select(count - 1));
+            }
+            built.add(-1);
+            built.remove(0);
+            assertTrue("The built tree is not usable", built.getHeight() <= expectedHeight + 1);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildFromUnsortedList() {
+        new AVLTree<>(java.util.Arrays.asList(1, 3, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildFromRepeatedList() {
+        new AVLTree<>(java.util.Arrays.asList(1, 2, 2));
+    }
+
+    @Test
+    public void testSpliteratorSplitsExactly() {
+        tree.clear();
+        for (int i = 0; i < 10000; i++) {
+            tree.add(i);
+        }
+        java.util.Spliterator<Integer> suffix = tree.spliterator();
+        java.util.Spliterator<Integer> prefix = suffix.trySplit();
+        assertNotNull("The spliterator did not split", prefix);
+        assertEquals("The split sizes are incorrect", 5000, prefix.estimateSize());
+        assertEquals("The split sizes are incorrect", 5000, suffix.estimateSize());
+        int[] first = new int[1];
+        assertTrue("The suffix is empty", suffix.tryAdvance(element -> first[0] = element));
+        assertEquals("The suffix starts at the wrong element", 5000, first[0]);
+        assertNull("A started spliterator was split", suffix.trySplit());
+        assertEquals("The suffix size is incorrect", 4999, suffix.estimateSize());
+    }
+
+    @Test
+    public void testParallelStream() {
+        tree.clear();
+        for (int i = 0; i < 50000; i++) {
+            tree.add(i * 7 % 50000);
+        }
+        assertEquals("The parallel stream lost elements", 50000, tree.parallelStream().count());
+        assertEquals("The parallel stream is incorrect", 1249975000L, tree.parallelStream().mapToLong(Integer::longValue).sum());
+        Integer[] ordered = tree.parallelStream().toArray(Integer[]::new);
+        for (int i = 0; i < ordered.length; i++) {
+            assertEquals("The parallel stream is out of order", Integer.valueOf(i), ordered[i]);
+        }
+        assertEquals("The sequential stream is incorrect", Integer.valueOf(10), tree.stream().skip(10).findFirst().get());
+    }
+
+    private int getRootHeight() {
+        try {
+            return tree.getRoot().getHeight();
+        } catch (TreeException e) {
+            return 0;
+        }
+    }
+
+    private Integer[] getIteratorContents(Iterator<Integer> iterator) {
+        java.util.ArrayList<Integer> contents = new java.util.ArrayList<>();
+        while (iterator.hasNext()) {
+            contents.add(iterator.next());
+        }
+        return contents.toArray(new Integer[0]);
+    }
+}
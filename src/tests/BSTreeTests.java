@@ -85,6 +85,24 @@ public class BSTreeTests {
         assertEquals("The add method is incorrectly implemented", 5, tree.size());
     }
 
+    @Test
+    public void testComputeIfAbsentAddsMissingElement() throws TreeException {
+        Integer actual = tree.computeIfAbsent(6, Integer::compare, key -> key);
+        assertEquals("The computeIfAbsent method is incorrectly implemented", Integer.valueOf(6), actual);
+        assertTrue("The computeIfAbsent method did not add the element", tree.contains(6));
+        assertEquals("The computeIfAbsent method is incorrectly implemented", 6, tree.size());
+    }
+
+    @Test
+    public void testComputeIfAbsentReturnsExistingElement() {
+        Integer existing = tree.computeIfAbsent(4, Integer::compare, key -> key);
+        Integer actual = tree.computeIfAbsent(4, Integer::compare, key -> {
+            throw new AssertionError("The factory was called for an existing key");
+        });
+        assertSame("The computeIfAbsent method did not return the stored element", existing, actual);
+        assertEquals("The computeIfAbsent method changed the size", 5, tree.size());
+    }
+
     @Test
     public void testInorderIterator() {
         Iterator<Integer> iterator = tree.inorderIterator();
@@ -106,6 +124,146 @@ public class BSTreeTests {
         assertArrayEquals("The postorderIterator method is incorrectly implemented", expected, getIteratorContents(iterator));
     }
 
+    @Test
+    public void testFirstAndLast() {
+        assertEquals("The first method is incorrectly implemented", Integer.valueOf(1), tree.first());
+        assertEquals("The last method is incorrectly implemented", Integer.valueOf(5), tree.last());
+        assertNull("The first method found an element in an empty tree", new BSTree<Integer>().first());
+    }
+
+    @Test
+    public void testFloorAndCeiling() {
+        tree.add(8);
+        assertEquals("The floor method is incorrectly implemented", Integer.valueOf(5), tree.floor(7));
+        assertEquals("The floor method is incorrectly implemented", Integer.valueOf(3), tree.floor(3));
+        assertNull("The floor method found a smaller element", tree.floor(0));
+        assertEquals("The ceiling method is incorrectly implemented", Integer.valueOf(8), tree.ceiling(6));
+        assertEquals("The ceiling method is incorrectly implemented", Integer.valueOf(1), tree.ceiling(-4));
+        assertNull("The ceiling method found a larger element", tree.ceiling(9));
+    }
+
+    @Test
+    public void testRangeIterator() {
+        assertArrayEquals("The rangeIterator method is incorrectly implemented",
+                new Integer[]{2, 3, 4}, getIteratorContents(tree.rangeIterator(2, 4)));
+        assertArrayEquals("The rangeIterator method is incorrectly implemented",
+                new Integer[]{4, 5}, getIteratorContents(tree.rangeIterator(4, null)));
+        assertArrayEquals("The rangeIterator method is incorrectly implemented",
+                new Integer[]{1, 2, 3, 4, 5}, getIteratorContents(tree.rangeIterator(null, null)));
+        assertArrayEquals("The rangeIterator method found elements in an empty range",
+                new Integer[0], getIteratorContents(tree.rangeIterator(6, 9)));
+    }
+
+    @Test
+    public void testRangeIteratorVisitsOnlyTheRange() {
+        BSTree<Integer> large = new utilities.AVLTree<>();
+        for (int i = 0; i < 1024; i++) {
+            large.add(i);
+        }
+        int[] visits = new int[1];
+        Iterator<Integer> iterator = large.rangeIterator(element -> {
+            visits[0]++;
+            return element < 500 ? -1 : element > 509 ? 1 : 0;
+        });
+        assertEquals("The rangeIterator method is incorrectly implemented", 10, getIteratorContents(iterator).length);
+        assertTrue("The rangeIterator method visited too many nodes", visits[0] < 60);
+    }
+
+    @Test
+    public void testRankAndSelect() {
+        for (int i = 0; i < 5; i++) {
+            assertEquals("The select method is incorrectly implemented", Integer.valueOf(i + 1), tree.select(i));
+            assertEquals("The rank method is incorrectly implemented", i, tree.rank(i + 1));
+        }
+        assertEquals("The rank method is incorrectly implemented", 0, tree.rank(0));
+        assertEquals("The rank method is incorrectly implemented", 5, tree.rank(9));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSelectOutOfRange() {
+        tree.select(5);
+    }
+
+    @Test
+    public void testInorderIteratorFromIndex() {
+        for (int i = 0; i <= 5; i++) {
+            Integer[] contents = getIteratorContents(tree.inorderIterator(i));
+            assertEquals("The inorderIterator method started at the wrong index", 5 - i, contents.length);
+            if (i < 5) {
+                assertEquals("The inorderIterator method started at the wrong index", Integer.valueOf(i + 1), contents[0]);
+            }
+        }
+    }
+
+    @Test
+    public void testRemove() throws TreeException {
+        assertTrue("The remove method did not remove a leaf", tree.remove(3));
+        assertTrue("The remove method did not remove a node with two children", tree.remove(2));
+        assertFalse("The remove method removed a missing element", tree.remove(3));
+        assertEquals("The remove method did not update the size", 3, tree.size());
+        assertFalse("The removed element is still in the tree", tree.contains(2));
+        assertArrayEquals("The remove method is incorrectly implemented",
+                new Integer[]{1, 4, 5}, getIteratorContents(tree.inorderIterator()));
+        assertEquals("The remove method did not update the ranks", Integer.valueOf(4), tree.select(1));
+    }
+
+    @Test
+    public void testRemoveAll() {
+        for (int i = 1; i <= 5; i++) {
+            assertTrue("The remove method did not remove an element", tree.remove(i));
+        }
+        assertTrue("The tree is not empty", tree.isEmpty());
+        assertTrue("The tree can not be reused", tree.add(7));
+    }
+
+    @Test
+    public void testTraversalsOfIrregularTree() throws TreeException {
+        tree.clear();
+        java.util.Random random = new java.util.Random(5);
+        for (int i = 0; i < 500; i++) {
+            tree.add(random.nextInt(1000));
+        }
+        java.util.List<Integer> preorder = new java.util.ArrayList<>();
+        java.util.List<Integer> postorder = new java.util.ArrayList<>();
+        walk(tree.getRoot(), preorder, postorder);
+        assertArrayEquals("The preorderIterator method is incorrectly implemented",
+                preorder.toArray(new Integer[0]), getIteratorContents(tree.preorderIterator()));
+        assertArrayEquals("The postorderIterator method is incorrectly implemented",
+                postorder.toArray(new Integer[0]), getIteratorContents(tree.postorderIterator()));
+    }
+
+    private void walk(BSTreeNode<Integer> node, java.util.List<Integer> preorder, java.util.List<Integer> postorder) {
+        if (node == null) {
+            return;
+        }
+        preorder.add(node.getElement());
+        walk(node.getLeft(), preorder, postorder);
+        walk(node.getRight(), preorder, postorder);
+        postorder.add(node.getElement());
+    }
+
+    @Test
+    public void testShape() {
+        utilities.TreeShape shape = tree.shape();
+        assertEquals("The size is incorrect", 5, shape.getSize());
+        assertEquals("The maximum depth is incorrect", 2, shape.getMaxDepth());
+        assertArrayEquals("The nodes per level are incorrect", new int[]{1, 2, 2}, shape.getNodesPerLevel());
+        assertEquals("The average depth is incorrect", 1.2, shape.getAverageDepth(), 1e-9);
+        assertEquals("The maximum depth of an empty tree is incorrect", -1, new BSTree<Integer>().shape().getMaxDepth());
+    }
+
+    @Test
+    public void testHeightOfDegenerateTree() {
+        tree.clear();
+        for (int i = 0; i < 10000; i++) {
+            tree.add(i);
+        }
+        assertEquals("The getHeight method implemented incorrectly", 10000, tree.getHeight());
+        tree.remove(9999);
+        assertEquals("The height was not updated on removal", 9999, tree.getHeight());
+        assertEquals("The maximum depth is incorrect", 9998, tree.shape().getMaxDepth());
+    }
+
     private Integer[] getIteratorContents(Iterator<Integer> iterator) {
         java.util.ArrayList<Integer> contents = new java.util.ArrayList<>();
         while (iterator.hasNext()) {
@@ -0,0 +1,186 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import exceptions.TreeException;
+import utilities.ConcurrentBSTree;
+import utilities.Iterator;
+
+public class ConcurrentBSTreeTests {
+
+    private static final int THREADS = 4;
+
+    private ConcurrentBSTree<Integer> tree;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        tree = new ConcurrentBSTree<>();
+        executor = Executors.newFixedThreadPool(THREADS + 1);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSequentialBehaviour() throws TreeException {
+        for (int i = 1; i <= 7; i++) {
+            assertTrue("The add method is incorrectly implemented", tree.add(i));
+        }
+        assertFalse("A duplicate element was added", tree.add(4));
+        assertEquals("The size method is incorrectly implemented", 7, tree.size());
+        assertEquals("The tree was not balanced", Integer.valueOf(4), tree.getRoot().getElement());
+        assertEquals("The getHeight method implemented incorrectly", 3, tree.getHeight());
+        assertArrayEquals("The inorderIterator method is incorrectly implemented",
+                new Integer[]{1, 2, 3, 4, 5, 6, 7}, contents(tree.inorderIterator()));
+        assertArrayEquals("The preorderIterator method is incorrectly implemented",
+                new Integer[]{4, 2, 1, 3, 6, 5, 7}, contents(tree.preorderIterator()));
+        assertNull("The search method found a missing element", tree.search(8));
+    }
+
+    @Test
+    public void testConcurrentRemovesSucceedOnce() throws Exception {
+        int count = 20000;
+        for (int i = 0; i < count; i++) {
+            tree.add(i);
+        }
+        List<Callable<Integer>> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            writers.add(() -> {
+                int removed = 0;
+                for (int i = 0; i < count; i += 2) {
+                    removed += tree.remove(i) ? 1 : 0;
+                }
+                return removed;
+            });
+        }
+        int removed = 0;
+        for (Future<Integer> result : executor.invokeAll(writers)) {
+            removed += result.get();
+        }
+        assertEquals("An element was removed more than once", count / 2, removed);
+        assertEquals("The size does not match the removes", count / 2, tree.size());
+        assertFalse("A removed element is still present", tree.contains(10));
+        assertTrue("A remaining element was removed", tree.contains(11));
+    }
+
+    @Test(expected = TreeException.class)
+    public void testSearchEmptyTree() throws TreeException {
+        tree.search(1);
+    }
+
+    @Test
+    public void testConcurrentAddsAreAllKept() throws Exception {
+        int perThread = 20000;
+        List<Callable<Integer>> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            writers.add(() -> {
+                int added = 0;
+                for (int i = 0; i < perThread; i++) {
+                    added += tree.add(i * THREADS + thread) ? 1 : 0;
+                }
+                return added;
+            });
+        }
+        for (Future<Integer> result : executor.invokeAll(writers)) {
+            assertEquals("An add was lost", Integer.valueOf(perThread), result.get());
+        }
+        assertEquals("The size does not match the adds", THREADS * perThread, tree.size());
+        assertTrue("The tree is not balanced", tree.getHeight() <= 24);
+        assertSorted(tree.inorderIterator(), THREADS * perThread);
+    }
+
+    @Test
+    public void testConcurrentDuplicateAddsSucceedOnce() throws Exception {
+        int count = 20000;
+        List<Callable<Integer>> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            writers.add(() -> {
+                int added = 0;
+                for (int i = 0; i < count; i++) {
+                    added += tree.add(i) ? 1 : 0;
+                }
+                return added;
+            });
+        }
+        int added = 0;
+        for (Future<Integer> result : executor.invokeAll(writers)) {
+            added += result.get();
+        }
+        assertEquals("An element was added more than once", count, added);
+        assertEquals("The size does not match the adds", count, tree.size());
+    }
+
+    @Test
+    public void testReadersSeeAddsInOrder() throws Exception {
+        int count = 50000;
+        AtomicBoolean done = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(THREADS);
+        List<Future<?>> readers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            readers.add(executor.submit(() -> {
+                started.countDown();
+                while (!done.get()) {
+                    if (tree.isEmpty()) {
+                        continue;
+                    }
+                    int seen = tree.size();
+                    // The writer adds in ascending order, so an element that is
+                    // visible implies every smaller one is visible too.
+                    for (int k = seen - 1; k >= 0; k -= Math.max(1, seen / 64)) {
+                        assertTrue("An earlier add became invisible", tree.contains(k));
+                    }
+                    assertSorted(tree.inorderIterator(), -1);
+                }
+                return null;
+            }));
+        }
+        started.await();
+        for (int i = 0; i < count; i++) {
+            tree.add(i);
+        }
+        done.set(true);
+        for (Future<?> reader : readers) {
+            reader.get();
+        }
+        assertEquals("The size does not match the adds", count, tree.size());
+    }
+
+    private static void assertSorted(Iterator<Integer> iterator, int expectedSize) {
+        int count = 0;
+        int previous = Integer.MIN_VALUE;
+        while (iterator.hasNext()) {
+            int next = iterator.next();
+            assertTrue("The iterator is out of order", count == 0 || next > previous);
+            previous = next;
+            count++;
+        }
+        if (expectedSize >= 0) {
+            assertEquals("The iterator missed elements", expectedSize, count);
+        }
+    }
+
+    private static Integer[] contents(Iterator<Integer> iterator) {
+        List<Integer> contents = new ArrayList<>();
+        while (iterator.hasNext()) {
+            contents.add(iterator.next());
+        }
+        return contents.toArray(new Integer[0]);
+    }
+}
@@ -0,0 +1,118 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import application.DeltaLog;
+import exceptions.TreeException;
+import modules.FileTable;
+import modules.Word;
+import utilities.BSTree;
+
+public class DeltaLogTests {
+
+    private final Word.KeyOrder order = new Word.KeyOrder();
+
+    private File log;
+
+    @Before
+    public void setUp() throws IOException {
+        log = File.createTempFile("repository", ".log");
+        log.delete();
+    }
+
+    @After
+    public void tearDown() {
+        log.delete();
+    }
+
+    private BSTree<Word> tree(String fileName, String... words) {
+        BSTree<Word> tree = new BSTree<>();
+        for (int i = 0; i < words.length; i++) {
+            tree.computeIfAbsent(words[i], order.of(words[i]), Word::new).addCount(i + 1, fileName);
+        }
+        return tree;
+    }
+
+    @Test
+    public void testReadMissingLog() throws IOException {
+        assertTrue("A missing log was not read as empty", DeltaLog.read(log).isEmpty());
+    }
+
+    @Test
+    public void testReadMergesRecords() throws IOException, TreeException {
+        DeltaLog.append(tree("a.txt", "the", "cat"), log);
+        DeltaLog.append(tree("b.txt", "the", "dog"), log);
+
+        BSTree<Word> read = DeltaLog.read(log);
+        assertEquals("The records were not merged", 3, read.size());
+        Word the = read.search(new Word("the")).getElement();
+        assertEquals("The locations were not merged", 2, the.getWordLocations().size());
+        assertEquals("The count was not merged", 2, the.getCount());
+    }
+
+    @Test
+    public void testReplayingARecordAddsNothing() throws IOException, TreeException {
+        DeltaLog.append(tree("a.txt", "the", "cat"), log);
+        DeltaLog.append(tree("a.txt", "the", "cat"), log);
+
+        Word the = DeltaLog.read(log).search(new Word("the")).getElement();
+        assertEquals("A replayed record added locations", 1, the.getWordLocations().size());
+        assertEquals("A replayed record changed the count", 1, the.getCount());
+    }
+
+    @Test
+    public void testReadIgnoresTruncatedRecord() throws IOException {
+        DeltaLog.append(tree("a.txt", "the", "cat"), log);
+        try (FileOutputStream out = new FileOutputStream(log, true)) {
+            out.write(new byte[]{0, 0, 1, 0, 'W', 'T'});
+        }
+        assertEquals("The complete record was not read", 2, DeltaLog.read(log).size());
+    }
+
+    @Test
+    public void testAppendAfterTruncatedRecord() throws IOException, TreeException {
+        DeltaLog.append(tree("a.txt", "the", "cat"), log);
+        long complete = log.length();
+        DeltaLog.append(tree("b.txt", "the", "dog"), log);
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.setLength(complete + 10);
+        }
+        DeltaLog.append(tree("c.txt", "the", "owl"), log);
+
+        BSTree<Word> read = DeltaLog.read(log);
+        assertEquals("The records around the truncated one were not read", 3, read.size());
+        assertNull("The truncated record was read", read.search(new Word("dog")));
+        assertEquals("The appended record was not read", 2,
+                read.search(new Word("the")).getElement().getWordLocations().size());
+    }
+
+    @Test
+    public void testRemovalAppliesToEarlierRecords() throws IOException, TreeException {
+        DeltaLog.append(tree("a.txt", "the", "cat"), log);
+        DeltaLog.append(tree("b.txt", "the", "dog"), log);
+        DeltaLog.appendRemoval(List.of("a.txt"), log);
+        DeltaLog.append(tree("a.txt", "owl"), log);
+
+        Set<Integer> removed = new HashSet<>();
+        BSTree<Word> read = DeltaLog.read(log, removed);
+        assertEquals("The removed file was not reported", Set.of(FileTable.idOf("a.txt")), removed);
+        assertNull("A word found only in the removed file was kept", read.search(new Word("cat")));
+        Word the = read.search(new Word("the")).getElement();
+        assertEquals("The removed file's location was kept", 1, the.getWordLocations().size());
+        assertEquals("The other file's location was removed", "b.txt", the.getWordLocations().get(0).getFileName());
+        assertEquals("The file read again after its removal was lost", "a.txt",
+                read.search(new Word("owl")).getElement().getWordLocations().get(0).getFileName());
+    }
+}
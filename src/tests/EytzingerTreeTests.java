@@ -0,0 +1,111 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import modules.Word;
+import utilities.AVLTree;
+import utilities.BSTree;
+import utilities.EytzingerTree;
+import utilities.Iterator;
+
+public class EytzingerTreeTests {
+
+    private static EytzingerTree<Integer> build(int size) {
+        List<Integer> sorted = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            sorted.add(i * 2);
+        }
+        return new EytzingerTree<>(sorted);
+    }
+
+    @Test
+    public void testFind() {
+        EytzingerTree<Integer> tree = build(1000);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("The find method is incorrectly implemented", Integer.valueOf(i * 2), tree.find(i * 2));
+            assertNull("The find method found a missing element", tree.find(i * 2 + 1));
+        }
+        assertTrue("The contains method is incorrectly implemented", tree.contains(8));
+        assertFalse("The contains method found a missing element", tree.contains(-1));
+        assertEquals("The getHeight method implemented incorrectly", 10, tree.getHeight());
+    }
+
+    @Test
+    public void testFindByPrefix() {
+        String[] keys = {"a", "abc", "abcdefgh", "abcdefghi", "abcdefghij", "abcdefgz", "b", "\u00e9t\u00e9",
+                "\u0100", "\u0100b", "\uff41", "\ud83d\ude00"};
+        AVLTree<Word> source = new AVLTree<>();
+        for (String key : keys) {
+            source.add(new Word(key));
+        }
+        EytzingerTree<Word> tree = new EytzingerTree<>(source, Word::getPrefix);
+        for (String key : keys) {
+            assertEquals("A word was not found by its prefix", key, tree.find(new Word(key)).getWord());
+        }
+        for (String missing : new String[]{"", "ab", "abcdefg", "abcdefghik", "\u0100a", "zz"}) {
+            assertNull("A missing word was found", tree.find(new Word(missing)));
+        }
+    }
+
+    @Test
+    public void testTraversalsMatchTheSameTree() {
+        for (int size = 0; size <= 70; size++) {
+            EytzingerTree<Integer> tree = build(size);
+            Integer[] inorder = contents(tree.inorderIterator());
+            Integer[] preorder = contents(tree.preorderIterator());
+            assertEquals("The inorderIterator method lost elements", size, inorder.length);
+            for (int i = 0; i < size; i++) {
+                assertEquals("The inorderIterator method is out of order", Integer.valueOf(i * 2), inorder[i]);
+            }
+
+            // Adding the pre-order sequence to a plain tree rebuilds the same shape.
+            BSTree<Integer> rebuilt = new BSTree<>();
+            for (Integer element : preorder) {
+                rebuilt.add(element);
+            }
+            assertEquals("The preorderIterator method lost elements", size, rebuilt.size());
+            assertEquals("The tree is not complete", tree.getHeight(), rebuilt.getHeight());
+            assertArrayEquals("The preorderIterator method is incorrectly implemented",
+                    contents(rebuilt.preorderIterator()), preorder);
+            assertArrayEquals("The postorderIterator method is incorrectly implemented",
+                    contents(rebuilt.postorderIterator()), contents(tree.postorderIterator()));
+        }
+    }
+
+    @Test
+    public void testCopyOfTree() {
+        AVLTree<Integer> source = new AVLTree<>();
+        for (int i = 20; i > 0; i--) {
+            source.add(i);
+        }
+        EytzingerTree<Integer> tree = new EytzingerTree<>(source);
+        assertEquals("The size method is incorrectly implemented", 20, tree.size());
+        assertArrayEquals("The copy is incorrect", contents(source.inorderIterator()), contents(tree.inorderIterator()));
+        assertEquals("The root is incorrect", Integer.valueOf(13), tree.preorderIterator().next());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildFromUnsortedList() {
+        new EytzingerTree<>(Arrays.asList(1, 3, 2));
+    }
+
+    @Test
+    public void testFindInEmptyTree() {
+        assertNull("An element was found in an empty tree", build(0).find(1));
+        assertFalse("The iterator of an empty tree has elements", build(0).inorderIterator().hasNext());
+    }
+
+    private static Integer[] contents(Iterator<Integer> iterator) {
+        List<Integer> contents = new ArrayList<>();
+        while (iterator.hasNext()) {
+            contents.add(iterator.next());
+        }
+        return contents.toArray(new Integer[0]);
+    }
+}
@@ -0,0 +1,120 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import application.MappedTokenizer;
+import application.Tokenizer;
+import application.WordTokenizer;
+
+public class MappedTokenizerTests {
+
+    private static String[] tokenize(byte[] text) {
+        List<String> tokens = new ArrayList<>();
+        new MappedTokenizer().tokenize(ByteBuffer.wrap(text), (word, lineNumber) -> tokens.add(word + "@" + lineNumber));
+        return tokens.toArray(new String[0]);
+    }
+
+    private static String[] tokenize(File file, Tokenizer tokenizer) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        tokenizer.tokenize(file, (word, lineNumber) -> tokens.add(word + "@" + lineNumber));
+        return tokens.toArray(new String[0]);
+    }
+
+    private static String[] expected(String text) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        new WordTokenizer().tokenize(new StringReader(text), (word, lineNumber) -> tokens.add(word + "@" + lineNumber));
+        return tokens.toArray(new String[0]);
+    }
+
+    /**
+     * Writes text to a temporary file and checks that both tokenizers find
+     * the same words in it.
+     */
+    private static void assertSameAsWordTokenizer(String message, byte[] text) throws IOException {
+        File file = File.createTempFile("tokens", ".txt");
+        try {
+            Files.write(file.toPath(), text);
+            assertArrayEquals(message, tokenize(file, new WordTokenizer()), tokenize(file, new MappedTokenizer()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testLowerCasesWords() {
+        assertArrayEquals("The words were not lower-cased", new String[]{"the@1", "cat@1"},
+                tokenize("The CAT".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testSplitsOnNonLetters() {
+        assertArrayEquals("The words were not split on non-letters",
+                new String[]{"don@1", "t@1", "stop@1", "x@1", "y@1", "z@1"},
+                tokenize("don't stop: x1y@[z`".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testCountsLines() {
+        assertArrayEquals("The line numbers are incorrect",
+                new String[]{"a@1", "b@2", "c@4", "d@5", "e@6"},
+                tokenize("a\nb\n\nc\r\nd\re\n".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testCountsUnicodeLineBreaks() throws IOException {
+        String text = "caf\u00e9 a\u0085b\u2028c\u2029d\r\u0085e \u20ac\u00c2\u0100f\n";
+        assertArrayEquals("The line numbers are incorrect", expected(text),
+                tokenize(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testEmptyText() throws IOException {
+        assertEquals("Words were found in empty text", 0, tokenize(new byte[0]).length);
+        assertSameAsWordTokenizer("Words were found in an empty file", new byte[0]);
+    }
+
+    @Test
+    public void testMalformedText() throws IOException {
+        byte[] text = {'a', (byte) 0xC2, (byte) 0xC2, (byte) 0x85, 'b', (byte) 0x85, 'c', (byte) 0xE2, (byte) 0x80,
+                '\n', 'd', (byte) 0xE2, (byte) 0xE2, (byte) 0x80, (byte) 0xA9, 'e', (byte) 0xF0, (byte) 0x80, 'f'};
+        assertSameAsWordTokenizer("Malformed text was read differently", text);
+    }
+
+    @Test
+    public void testLineBreaksAcrossReads() throws IOException {
+        byte[] text = new byte[3 * (1 << 16)];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = 'w';
+        }
+        // A carriage return and line feed, and a line separator, each
+        // straddling the end of a read.
+        text[(1 << 17) - 1] = '\r';
+        text[1 << 17] = '\n';
+        byte[] separator = "\u2028".getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(separator, 0, text, (1 << 16) - 1, separator.length);
+        assertSameAsWordTokenizer("Text split across reads was read differently", text);
+    }
+
+    @Test
+    public void testMappedFile() throws IOException {
+        Random random = new Random(5);
+        String[] pieces = {"word", "Word", " ", ", ", "\n", "\r\n", "\r", "\u00e9", "\u0085", "\u2028", "\u2029", "\u20ac", "\ud83d\ude00"};
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 3 << 20) {
+            text.append(pieces[random.nextInt(pieces.length)]);
+        }
+        assertSameAsWordTokenizer("A mapped file was read differently", text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,180 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import application.OffHeapDictionary;
+import application.WordIndexer;
+import application.WordTokenizer;
+import modules.Word;
+import utilities.BSTree;
+import utilities.Iterator;
+
+public class OffHeapDictionaryTests {
+
+    private final Word.KeyOrder order = new Word.KeyOrder();
+
+    private BSTree<Word> tree;
+
+    @Before
+    public void setUp() {
+        tree = new BSTree<>();
+        add("the", 1, "a.txt");
+        add("the", 7, "a.txt");
+        add("cat", 2, "a.txt");
+        add("the", 3, "b.txt");
+        add("zebra", 100000, "b.txt");
+    }
+
+    private void add(String key, int lineNumber, String fileName) {
+        tree.computeIfAbsent(key, order.of(key), Word::new).addCount(lineNumber, fileName);
+    }
+
+    /**
+     * Spells a number with letters only, so the tokenizer reads it as one word.
+     */
+    private static String letters(int number) {
+        StringBuilder word = new StringBuilder("w");
+        do {
+            word.append((char) ('a' + number % 26));
+            number /= 26;
+        } while (number > 0);
+        return word.toString();
+    }
+
+    @Test
+    public void testCopyKeepsLocations() {
+        OffHeapDictionary dictionary = OffHeapDictionary.copyOf(tree.inorderIterator());
+        assertEquals("The size is incorrect", 3, dictionary.size());
+        Word word = dictionary.lookup("the");
+        assertEquals("The count changed", 3, word.getCount());
+        assertEquals("The number of locations changed", 2, word.getWordLocations().size());
+        assertArrayEquals("The line numbers changed", new int[]{1, 7},
+                word.getWordLocations().get(0).getLineNumbers());
+        assertEquals("The file name changed", "b.txt", word.getWordLocations().get(1).getFileName());
+        assertEquals("The last word is incorrect", 100000,
+                dictionary.lookup("zebra").getWordLocations().get(0).getLineNumber(0));
+    }
+
+    @Test
+    public void testLookupMissingWords() {
+        OffHeapDictionary dictionary = OffHeapDictionary.copyOf(tree.inorderIterator());
+        assertTrue("A word was not found", dictionary.contains("cat"));
+        assertNull("A missing word was found", dictionary.lookup("dog"));
+        assertNull("A missing word was found", dictionary.lookup("a"));
+        assertNull("A missing word was found", dictionary.lookup("zebras"));
+    }
+
+    @Test
+    public void testIteratorFromKey() {
+        OffHeapDictionary dictionary = OffHeapDictionary.copyOf(tree.inorderIterator());
+        Iterator<Word> iterator = dictionary.iterator("dog");
+        assertEquals("The iterator started at the wrong word", "the", iterator.next().getWord());
+        assertEquals("The iterator is out of order", "zebra", iterator.next().getWord());
+        assertFalse("The iterator did not end", iterator.hasNext());
+        assertFalse("The iterator found a word past the end", dictionary.iterator("zz").hasNext());
+    }
+
+    @Test
+    public void testEmptyDictionary() {
+        OffHeapDictionary dictionary = OffHeapDictionary.copyOf(new BSTree<Word>().inorderIterator());
+        assertEquals("The size is incorrect", 0, dictionary.size());
+        assertNull("A word was found in an empty dictionary", dictionary.lookup("the"));
+        assertFalse("The iterator of an empty dictionary has words", dictionary.iterator().hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnsortedWords() {
+        OffHeapDictionary.copyOf(tree.postorderIterator());
+    }
+
+    @Test
+    public void testEntriesSpanManyArenas() {
+        for (int i = 0; i < 100000; i++) {
+            add(letters(i), i + 1, "big.txt");
+        }
+        for (int line = 1; line <= 550000; line++) {
+            add("cat", line * 200, "long.txt");
+        }
+        OffHeapDictionary dictionary = OffHeapDictionary.copyOf(tree.inorderIterator());
+        assertEquals("The size is incorrect", tree.size(), dictionary.size());
+        assertTrue("The words did not need several arenas", dictionary.offHeapBytes() > 2 << 20);
+        assertEquals("A word larger than an arena was damaged", 550001, dictionary.lookup("cat").getCount());
+        assertEquals("A word in a later arena is incorrect", 90001,
+                dictionary.lookup(letters(90000)).getWordLocations().get(0).getLineNumber(0));
+        Iterator<Word> expected = tree.inorderIterator();
+        Iterator<Word> actual = dictionary.iterator();
+        while (expected.hasNext()) {
+            assertEquals("The iterator is out of order", expected.next().getWord(), actual.next().getWord());
+        }
+        assertFalse("The iterator did not end", actual.hasNext());
+    }
+
+    @Test
+    public void testIndexFilesOffHeapMatchesHeapIndex() throws IOException {
+        List<File> files = new ArrayList<>();
+        for (int f = 0; f < 3; f++) {
+            File file = File.createTempFile("words", ".txt");
+            file.deleteOnExit();
+            try (PrintWriter out = new PrintWriter(file)) {
+                for (int i = 0; i < 40000; i++) {
+                    out.println(letters(i * 3 + f) + " shared");
+                }
+            }
+            files.add(file);
+        }
+        BSTree<Word> expected = WordIndexer.indexFiles(files, true, new WordTokenizer());
+        OffHeapDictionary dictionary = WordIndexer.indexFilesOffHeap(files, new WordTokenizer());
+        assertEquals("The size is incorrect", expected.size(), dictionary.size());
+
+        Word shared = dictionary.lookup("shared");
+        assertEquals("The locations were not merged", 3, shared.getWordLocations().size());
+        for (int f = 0; f < 3; f++) {
+            assertEquals("The locations are out of file order", files.get(f).getPath().toLowerCase(),
+                    shared.getWordLocations().get(f).getFileName());
+        }
+        Iterator<Word> iterator = expected.inorderIterator();
+        Iterator<Word> actual = dictionary.iterator();
+        while (iterator.hasNext()) {
+            Word word = iterator.next();
+            Word copy = actual.next();
+            assertEquals("The words differ", word.getWord(), copy.getWord());
+            assertEquals("The counts differ", word.getCount(), copy.getCount());
+        }
+    }
+
+    @Test
+    public void testIndexLargeFileOffHeap() throws IOException {
+        File file = File.createTempFile("words", ".txt");
+        file.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("shared");
+            for (int i = 0; i < 150000; i++) {
+                out.println(letters(i));
+            }
+            out.println("shared");
+        }
+        List<File> files = List.of(file);
+        BSTree<Word> expected = WordIndexer.indexFiles(files, true, new WordTokenizer());
+        OffHeapDictionary dictionary = WordIndexer.indexFilesOffHeap(files, new WordTokenizer());
+        assertEquals("The size is incorrect", expected.size(), dictionary.size());
+
+        Word shared = dictionary.lookup("shared");
+        assertEquals("The locations of a file split across runs were not merged", 1, shared.getWordLocations().size());
+        assertArrayEquals("The line numbers are incorrect", new int[]{1, 150002},
+                shared.getWordLocations().get(0).getLineNumbers());
+        Iterator<Word> iterator = expected.inorderIterator();
+        Iterator<Word> actual = dictionary.iterator();
+        while (iterator.hasNext()) {
+            assertEquals("The words differ", iterator.next().getWord(), actual.next().getWord());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import exceptions.TreeException;
+import utilities.ConcurrentBSTree;
+import utilities.Iterator;
+import utilities.PersistentBSTree;
+
+public class PersistentBSTreeTests {
+
+    private PersistentBSTree<Integer> tree;
+
+    @Before
+    public void setUp() {
+        tree = new PersistentBSTree<>();
+        for (int i = 1; i <= 7; i++) {
+            tree.add(i);
+        }
+    }
+
+    @Test
+    public void testBalancedShape() throws TreeException {
+        assertEquals("The tree was not balanced", Integer.valueOf(4), tree.getRoot().getElement());
+        assertEquals("The getHeight method implemented incorrectly", 3, tree.getHeight());
+        assertArrayEquals("The preorderIterator method is incorrectly implemented",
+                new Integer[]{4, 2, 1, 3, 6, 5, 7}, contents(tree.preorderIterator()));
+    }
+
+    @Test
+    public void testPlusLeavesOldVersionUnchanged() throws TreeException {
+        PersistentBSTree<Integer> next = tree.plus(8);
+        assertEquals("The old version changed", 7, tree.size());
+        assertFalse("The old version changed", tree.contains(8));
+        assertEquals("The new version is incorrect", 8, next.size());
+        assertArrayEquals("The new version is incorrect",
+                new Integer[]{1, 2, 3, 4, 5, 6, 7, 8}, contents(next.inorderIterator()));
+        assertSame("A duplicate created a new version", next, next.plus(8));
+    }
+
+    @Test
+    public void testPlusSharesUntouchedNodes() throws TreeException {
+        PersistentBSTree<Integer> next = tree.plus(8);
+        assertSame("The left subtree was copied", tree.getRoot().getLeft(), next.getRoot().getLeft());
+        assertNotSame("The path to the new leaf was not copied", tree.getRoot(), next.getRoot());
+    }
+
+    @Test
+    public void testSnapshotIsIsolated() {
+        PersistentBSTree<Integer> snapshot = tree.snapshot();
+        Iterator<Integer> iterator = snapshot.inorderIterator();
+        for (int i = 8; i <= 100; i++) {
+            tree.add(i);
+        }
+        assertEquals("The snapshot changed", 7, snapshot.size());
+        assertArrayEquals("The snapshot changed", new Integer[]{1, 2, 3, 4, 5, 6, 7}, contents(iterator));
+        snapshot.add(0);
+        assertEquals("The snapshot changed the tree", 100, tree.size());
+    }
+
+    @Test
+    public void testMinusLeavesOldVersionUnchanged() throws TreeException {
+        PersistentBSTree<Integer> next = tree.minus(4).minus(1);
+        assertArrayEquals("The old version changed", new Integer[]{1, 2, 3, 4, 5, 6, 7}, contents(tree.inorderIterator()));
+        assertArrayEquals("The new version is incorrect", new Integer[]{2, 3, 5, 6, 7}, contents(next.inorderIterator()));
+        assertEquals("The new version is incorrect", 5, next.size());
+        assertSame("A missing element created a new version", next, next.minus(4));
+        for (int i = 2; i <= 7; i++) {
+            next.remove(i);
+        }
+        assertTrue("The tree is not empty", next.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentTreeSnapshot() {
+        ConcurrentBSTree<Integer> concurrent = new ConcurrentBSTree<>();
+        concurrent.add(1);
+        PersistentBSTree<Integer> snapshot = concurrent.snapshot();
+        concurrent.add(2);
+        snapshot.add(3);
+        assertArrayEquals("The snapshot changed", new Integer[]{1, 3}, contents(snapshot.inorderIterator()));
+        assertArrayEquals("The snapshot changed the tree", new Integer[]{1, 2}, contents(concurrent.inorderIterator()));
+    }
+
+    private static Integer[] contents(Iterator<Integer> iterator) {
+        List<Integer> contents = new ArrayList<>();
+        while (iterator.hasNext()) {
+            contents.add(iterator.next());
+        }
+        return contents.toArray(new Integer[0]);
+    }
+}
@@ -0,0 +1,118 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import utilities.Iterator;
+import utilities.RadixTree;
+
+public class RadixTreeTests {
+
+    private RadixTree<String> tree;
+
+    @Before
+    public void setUp() {
+        tree = new RadixTree<>();
+        for (String key : new String[]{"the", "then", "cat", "these", "th", "category"}) {
+            tree.computeIfAbsent(key, CharSequence::toString);
+        }
+    }
+
+    private static List<String> contents(Iterator<String> iterator) {
+        List<String> contents = new ArrayList<>();
+        while (iterator.hasNext()) {
+            contents.add(iterator.next());
+        }
+        return contents;
+    }
+
+    @Test
+    public void testGet() {
+        assertEquals("The size is incorrect", 6, tree.size());
+        for (String key : new String[]{"the", "then", "cat", "these", "th", "category"}) {
+            assertEquals("A key was not found", key, tree.get(key));
+        }
+        assertNull("A prefix of a key was found", tree.get("t"));
+        assertNull("A prefix of a key was found", tree.get("categ"));
+        assertNull("A missing key was found", tree.get("thy"));
+        assertNull("A missing key was found", tree.get("categoryx"));
+        assertFalse("The empty key was found", tree.containsKey(""));
+    }
+
+    @Test
+    public void testComputeIfAbsentReturnsExistingValue() {
+        String existing = tree.get("then");
+        String actual = tree.computeIfAbsent(new StringBuilder("then"), key -> {
+            throw new AssertionError("The factory was called for an existing key");
+        });
+        assertSame("The existing value was not returned", existing, actual);
+        assertEquals("The size changed", 6, tree.size());
+    }
+
+    @Test
+    public void testComputeIfAbsentAddsKeyInsideLabel() {
+        tree.computeIfAbsent("ca", CharSequence::toString);
+        tree.computeIfAbsent("", key -> "empty");
+        assertEquals("The size is incorrect", 8, tree.size());
+        assertEquals("A key ending inside a label was not added", "ca", tree.get("ca"));
+        assertEquals("The empty key was not added", "empty", tree.get(""));
+        assertEquals("A split key was lost", "category", tree.get("category"));
+    }
+
+    @Test
+    public void testInorderIterator() {
+        assertEquals("The inorderIterator method is incorrectly implemented",
+                List.of("cat", "category", "th", "the", "then", "these"), contents(tree.inorderIterator()));
+    }
+
+    @Test
+    public void testInorderIteratorOrdersLikeStrings() {
+        Random random = new Random(3);
+        char[] alphabet = {'a', 'b', 'c', 'z', '\u00e9', '\u0100', '\uff41', '\ud83d', '\ude00'};
+        RadixTree<String> words = new RadixTree<>();
+        TreeSet<String> expected = new TreeSet<>();
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int length = random.nextInt(8); length > 0; length--) {
+                key.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            words.computeIfAbsent(key, CharSequence::toString);
+            expected.add(key.toString());
+        }
+        assertEquals("The size is incorrect", expected.size(), words.size());
+        assertEquals("The keys are not in String order", new ArrayList<>(expected), contents(words.inorderIterator()));
+    }
+
+    @Test
+    public void testManyChildren() {
+        RadixTree<String> words = new RadixTree<>();
+        for (char c = 400; c > 0; c--) {
+            words.computeIfAbsent("x" + c, CharSequence::toString);
+        }
+        assertEquals("The size is incorrect", 400, words.size());
+        for (char c = 1; c <= 400; c++) {
+            assertEquals("A key was not found", "x" + c, words.get("x" + c));
+        }
+        assertEquals("The keys are out of order", "x\u0001", words.inorderIterator().next());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testComputeIfAbsentRejectsNull() {
+        tree.computeIfAbsent("dog", key -> null);
+    }
+
+    @Test
+    public void testClear() {
+        tree.clear();
+        assertTrue("The tree was not cleared", tree.isEmpty());
+        assertNull("A key survived clear", tree.get("the"));
+        assertFalse("The iterator of an empty tree has values", tree.inorderIterator().hasNext());
+    }
+}
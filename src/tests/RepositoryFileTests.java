@@ -0,0 +1,205 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import application.MappedRepository;
+import application.RepositoryFile;
+import exceptions.TreeException;
+import modules.Word;
+import modules.WordLocation;
+import utilities.BSTree;
+import utilities.Iterator;
+
+public class RepositoryFileTests {
+
+    private final Word.KeyOrder order = new Word.KeyOrder();
+
+    private BSTree<Word> tree;
+
+    @Before
+    public void setUp() {
+        tree = new BSTree<>();
+        add("the", 1, "a.txt");
+        add("the", 7, "a.txt");
+        add("cat", 2, "a.txt");
+        add("the", 3, "b.txt");
+        add("zebra", 100000, "b.txt");
+        add("the", 5, "a.txt");
+    }
+
+    private void add(String key, int lineNumber, String fileName) {
+        tree.computeIfAbsent(key, order.of(key), Word::new).addCount(lineNumber, fileName);
+    }
+
+    private BSTree<Word> roundTrip(BSTree<Word> source) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            RepositoryFile.write(source, out);
+        }
+        return RepositoryFile.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test
+    public void testRoundTripKeepsWords() throws IOException, TreeException {
+        BSTree<Word> copy = roundTrip(tree);
+        assertEquals("The number of words changed", 3, copy.size());
+        assertTrue("A word was lost", copy.contains(new Word("zebra")));
+    }
+
+    @Test
+    public void testRoundTripKeepsLocations() throws IOException, TreeException {
+        Word word = roundTrip(tree).search(new Word("the")).getElement();
+        assertEquals("The count changed", 4, word.getCount());
+        assertEquals("The number of locations changed", 2, word.getWordLocations().size());
+
+        WordLocation first = word.getWordLocations().get(0);
+        assertEquals("The file name changed", "a.txt", first.getFileName());
+        assertArrayEquals("The line numbers changed", new int[]{1, 5, 7}, first.getLineNumbers());
+        assertEquals("The file name changed", "b.txt", word.getWordLocations().get(1).getFileName());
+    }
+
+    @Test
+    public void testRoundTripSharesFileNames() throws IOException, TreeException {
+        BSTree<Word> copy = roundTrip(tree);
+        String fromThe = copy.search(new Word("the")).getElement().getWordLocations().get(0).getFileName();
+        String fromCat = copy.search(new Word("cat")).getElement().getWordLocations().get(0).getFileName();
+        assertSame("File names were not shared through the file table", fromThe, fromCat);
+    }
+
+    @Test
+    public void testRoundTripEmptyTree() throws IOException {
+        assertTrue("An empty tree did not stay empty", roundTrip(new BSTree<>()).isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadRejectsOtherFiles() throws IOException {
+        RepositoryFile.read(new DataInputStream(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8})));
+    }
+
+    @Test
+    public void testStreamedIterator() throws IOException {
+        File file = File.createTempFile("repository", ".ser");
+        file.deleteOnExit();
+        RepositoryFile.write(tree, file);
+        Iterator<Word> expected = tree.inorderIterator();
+        Iterator<Word> iterator = RepositoryFile.iterator(file);
+        while (expected.hasNext()) {
+            Word word = expected.next();
+            Word read = iterator.next();
+            assertEquals("The streamed iterator is out of order", word.getWord(), read.getWord());
+            assertEquals("The streamed iterator changed a count", word.getCount(), read.getCount());
+        }
+        assertFalse("The streamed iterator did not end", iterator.hasNext());
+
+        RepositoryFile.write(new BSTree<>(), file);
+        assertFalse("The streamed iterator found a word in an empty repository",
+                RepositoryFile.iterator(file).hasNext());
+    }
+
+    private MappedRepository mapped(BSTree<Word> source) throws IOException {
+        File file = File.createTempFile("repository", ".ser");
+        file.deleteOnExit();
+        RepositoryFile.write(source, file);
+        return MappedRepository.open(file);
+    }
+
+    @Test
+    public void testMappedLookup() throws IOException {
+        MappedRepository repository = mapped(tree);
+        assertEquals("The mapped size is incorrect", 3, repository.size());
+        assertEquals("The mapped lookup is incorrect", 4, repository.lookup("the").getCount());
+        assertEquals("The mapped lookup is incorrect", "cat", repository.lookup("cat").getWord());
+        assertEquals("The mapped lookup is incorrect", "zebra", repository.lookup("zebra").getWord());
+        assertNull("The mapped lookup found a missing word", repository.lookup("dog"));
+        assertNull("The mapped lookup found a missing word", repository.lookup("zebras"));
+    }
+
+    @Test
+    public void testMappedIterator() throws IOException {
+        Iterator<Word> iterator = mapped(tree).iterator();
+        String[] expected = new String[]{"cat", "the", "zebra"};
+        for (String word : expected) {
+            assertTrue("The mapped iterator ended early", iterator.hasNext());
+            assertEquals("The mapped iterator is out of order", word, iterator.next().getWord());
+        }
+        assertFalse("The mapped iterator did not end", iterator.hasNext());
+    }
+
+    @Test
+    public void testMappedIteratorFromKey() throws IOException {
+        MappedRepository repository = mapped(tree);
+        Iterator<Word> iterator = repository.iterator("dog");
+        assertEquals("The mapped iterator started at the wrong word", "the", iterator.next().getWord());
+        assertEquals("The mapped iterator is out of order", "zebra", iterator.next().getWord());
+        assertFalse("The mapped iterator did not end", iterator.hasNext());
+        assertEquals("The mapped iterator started at the wrong word", "cat", repository.iterator("cat").next().getWord());
+        assertFalse("The mapped iterator found a word past the end", repository.iterator("zebras").hasNext());
+    }
+
+    @Test
+    public void testPrefixQuery() {
+        add("thesis", 4, "a.txt");
+        add("then", 6, "b.txt");
+        Iterator<Word> iterator = tree.rangeIterator(Word.prefixPosition("the"));
+        for (String word : new String[]{"the", "then", "thesis"}) {
+            assertEquals("The prefix query is incorrect", word, iterator.next().getWord());
+        }
+        assertFalse("The prefix query did not end", iterator.hasNext());
+        assertEquals("The range query is incorrect", "cat", tree.rangeIterator(Word.rangePosition("a", "d")).next().getWord());
+    }
+
+    @Test
+    public void testMappedLookupOrdersLikeStrings() throws IOException {
+        add("\uff41", 1, "a.txt");
+        add("\ud83d\ude00", 2, "a.txt");
+        MappedRepository repository = mapped(tree);
+        assertEquals("A word beyond the supplementary characters was not found", "\uff41",
+                repository.lookup("\uff41").getWord());
+        assertEquals("A supplementary character was not found", "\ud83d\ude00",
+                repository.lookup("\ud83d\ude00").getWord());
+        assertEquals("The mapped iterator started at the wrong word", "\uff41",
+                repository.iterator("\ue000").next().getWord());
+    }
+
+    @Test
+    public void testMappedEmptyRepository() throws IOException {
+        MappedRepository repository = mapped(new BSTree<>());
+        assertEquals("The mapped size is incorrect", 0, repository.size());
+        assertNull("The mapped lookup found a word in an empty repository", repository.lookup("the"));
+    }
+
+    @Test
+    public void testMappedInSegments() throws IOException {
+        for (int i = 0; i < 200; i++) {
+            add("word" + i, i + 1, "file" + (i % 7) + ".txt");
+        }
+        File file = File.createTempFile("repository", ".ser");
+        file.deleteOnExit();
+        RepositoryFile.write(tree, file);
+        MappedRepository whole = MappedRepository.open(file);
+        for (int segmentSize : new int[]{1, 7, 64, 1000}) {
+            MappedRepository repository = MappedRepository.open(file, segmentSize);
+            assertEquals("The mapped size is incorrect", whole.size(), repository.size());
+            Iterator<Word> expected = whole.iterator();
+            Iterator<Word> iterator = repository.iterator();
+            for (int i = 0; i < whole.size(); i++) {
+                Word word = expected.next();
+                assertEquals("The mapped iterator is incorrect", word.getWord(), iterator.next().getWord());
+                assertEquals("The mapped lookup is incorrect", word.getCount(), repository.lookup(word.getWord()).getCount());
+                assertEquals("The mapped get is incorrect", word.getWord(), repository.get(i).getWord());
+            }
+            assertFalse("The mapped iterator did not end", iterator.hasNext());
+            assertNull("A missing word was found", repository.lookup("word"));
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import application.WordIndexer;
+import modules.FileTable;
+import modules.Word;
+import modules.WordLocation;
+import utilities.AVLTree;
+import utilities.BSTree;
+
+public class WordTests {
+
+    private final Word.KeyOrder order = new Word.KeyOrder();
+
+    private Word word;
+
+    @Before
+    public void setUp() {
+        word = new Word("cat");
+    }
+
+    @Test
+    public void testAddCount() {
+        word.addCount(1, "a.txt");
+        word.addCount(2, "a.txt");
+        word.addCount(1, "b.txt");
+        assertEquals("The count is incorrect", 3, word.getCount());
+        assertEquals("The number of locations is incorrect", 2, word.getWordLocations().size());
+    }
+
+    @Test
+    public void testAddCountIgnoresRepeatedLine() {
+        word.addCount(4, "a.txt");
+        word.addCount(4, "a.txt");
+        assertEquals("A repeated line was counted", 1, word.getCount());
+        assertEquals("A repeated line was recorded", 1, word.getWordLocations().get(0).getLineCount());
+    }
+
+    @Test
+    public void testAddCountAcrossManyFiles() {
+        for (int file = 0; file < 100; file++) {
+            word.addCount(1, "file" + file + ".txt");
+        }
+        word.addCount(2, "file3.txt");
+        word.addCount(1, "file50.txt");
+        word.addCount(1, "new.txt");
+        assertEquals("The count is incorrect", 102, word.getCount());
+        assertEquals("The number of locations is incorrect", 101, word.getWordLocations().size());
+        assertEquals("The locations are out of order", "file3.txt", word.getWordLocations().get(3).getFileName());
+        assertArrayEquals("The line was added to the wrong location", new int[]{1, 2}, word.getWordLocations().get(3).getLineNumbers());
+        assertEquals("The new location was not added last", "new.txt", word.getWordLocations().get(100).getFileName());
+    }
+
+    @Test
+    public void testLineNumbersStaySorted() {
+        WordLocation wl = new WordLocation("a.txt");
+        for (int lineNumber : new int[]{5, 1, 9, 3, 5, 9, 7}) {
+            wl.addLineNumber(lineNumber);
+        }
+        assertArrayEquals("The line numbers are not sorted", new int[]{1, 3, 5, 7, 9}, wl.getLineNumbers());
+    }
+
+    @Test
+    public void testAddLineNumberInOrder() {
+        WordLocation wl = new WordLocation("a.txt");
+        for (int lineNumber = 1; lineNumber <= 1000; lineNumber++) {
+            assertTrue("A new line was not added", wl.addLineNumber(lineNumber));
+            assertFalse("A repeated line was added", wl.addLineNumber(lineNumber));
+        }
+        assertEquals("The line count is incorrect", 1000, wl.getLineCount());
+        assertEquals("The last line is incorrect", 1000, wl.getLineNumber(999));
+    }
+
+    @Test
+    public void testMerge() {
+        word.addCount(1, "a.txt");
+        Word other = new Word("cat");
+        other.addCount(1, "a.txt");
+        other.addCount(2, "a.txt");
+        other.addCount(3, "b.txt");
+        word.merge(other);
+        assertEquals("The count is incorrect", 3, word.getCount());
+        assertArrayEquals("The line numbers were not merged", new int[]{1, 2}, word.getWordLocations().get(0).getLineNumbers());
+    }
+
+    @Test
+    public void testRemoveLocation() {
+        for (int file = 0; file < 20; file++) {
+            word.addCount(1, "file" + file + ".txt");
+        }
+        word.addCount(2, "file3.txt");
+        assertTrue("The location was not removed", word.removeLocation("file3.txt"));
+        assertFalse("A missing location was removed", word.removeLocation("file3.txt"));
+        assertEquals("The count is incorrect", 19, word.getCount());
+        word.addCount(5, "file3.txt");
+        assertEquals("The location was not added again", "file3.txt", word.getWordLocations().get(19).getFileName());
+        assertArrayEquals("The old lines were kept", new int[]{5}, word.getWordLocations().get(19).getLineNumbers());
+    }
+
+    @Test
+    public void testUnindexFile() {
+        BSTree<Word> tree = new AVLTree<>();
+        String[] keys = {"cat", "dog", "emu", "fox"};
+        List<Word> fileWords = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            Word added = tree.computeIfAbsent(keys[i], order.of(keys[i]), Word::new);
+            added.addCount(i + 1, "a.txt");
+            fileWords.add(added);
+        }
+        tree.computeIfAbsent("dog", order.of("dog"), Word::new).addCount(1, "b.txt");
+        fileWords.add(fileWords.get(0));
+        assertEquals("The wrong number of words was removed", 3, WordIndexer.unindexFile(tree, "a.txt", fileWords));
+        assertEquals("The emptied words were not removed", 1, tree.size());
+        Word dog = tree.inorderIterator().next();
+        assertEquals("The wrong word was kept", "dog", dog.getWord());
+        assertEquals("The count is incorrect", 1, dog.getCount());
+        assertEquals("The other file was removed", "b.txt", dog.getWordLocations().get(0).getFileName());
+    }
+
+    @Test
+    public void testSerialization() throws IOException, ClassNotFoundException {
+        word.addCount(2, "a.txt");
+        word.addCount(1, "a.txt");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(word);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Word copy = (Word) in.readObject();
+            assertEquals("The word changed", "cat", copy.getWord());
+            assertArrayEquals("The line numbers changed", new int[]{1, 2}, copy.getWordLocations().get(0).getLineNumbers());
+            assertEquals("The prefix was not restored", 0, copy.compareTo(new Word("cat")));
+            assertEquals("The file name changed", "a.txt", copy.getWordLocations().get(0).getFileName());
+            assertTrue("The prefix was not restored", copy.compareTo(new Word("cats")) < 0);
+        }
+    }
+
+    @Test
+    public void testFileTableNumbersEqualNamesOnce() {
+        int id = FileTable.idOf(new String("dir/file-table.txt"));
+        assertEquals("Equal file names were numbered twice", id, FileTable.idOf(new String("dir/file-table.txt")));
+        assertEquals("The number does not give the file name back", "dir/file-table.txt", FileTable.nameOf(id));
+        assertEquals("A numbered file name was not found", id, FileTable.find("dir/file-table.txt"));
+        assertEquals("A file name was found before it was numbered", -1, FileTable.find("dir/never-read.txt"));
+    }
+
+    @Test
+    public void testLocationsShareFileNumbers() {
+        Word dog = new Word("dog");
+        word.addCount(1, new String("shared.txt"));
+        dog.addCount(2, new String("shared.txt"));
+        WordLocation first = word.getWordLocations().get(0);
+        WordLocation second = dog.getWordLocations().get(0);
+        assertEquals("The locations of one file have different numbers", first.getFileId(), second.getFileId());
+        assertSame("The file name was stored twice", first.getFileName(), second.getFileName());
+    }
+
+    @Test
+    public void testCompareToOrdersLikeStrings() {
+        String[] keys = {"", "a", "a\u0000", "ab", "abcdefgh", "abcdefghi", "abcdefgz", "\u00ff", "\u00ffz",
+                "\u0100", "\u0101", "a\u0100", "a\u00ff\u00ff", "\uff41", "\ud83d\ude00", "zebra"};
+        for (String first : keys) {
+            for (String second : keys) {
+                int expected = Integer.signum(first.compareTo(second));
+                assertEquals("The words are ordered unlike strings: " + first + ", " + second,
+                        expected, Integer.signum(new Word(first).compareTo(new Word(second))));
+                assertEquals("The key order is unlike strings: " + first + ", " + second,
+                        expected, Integer.signum(order.of(second).applyAsInt(new Word(first), second)));
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import application.WordTokenizer;
+
+public class WordTokenizerTests {
+
+    private String[] tokenize(String text) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        new WordTokenizer().tokenize(new StringReader(text), (word, lineNumber) -> tokens.add(word + "@" + lineNumber));
+        return tokens.toArray(new String[0]);
+    }
+
+    @Test
+    public void testLowerCasesWords() throws IOException {
+        assertArrayEquals("The words were not lower-cased", new String[]{"the@1", "cat@1"}, tokenize("The CAT"));
+    }
+
+    @Test
+    public void testSplitsOnNonLetters() throws IOException {
+        assertArrayEquals("The words were not split on non-letters",
+                new String[]{"don@1", "t@1", "stop@1", "x@1", "y@1"}, tokenize("don't stop: x1y"));
+    }
+
+    @Test
+    public void testCountsLines() throws IOException {
+        assertArrayEquals("The line numbers are incorrect",
+                new String[]{"a@1", "b@2", "c@4", "d@5", "e@6"}, tokenize("a\nb\n\nc\r\nd\re\n"));
+    }
+
+    @Test
+    public void testEmptyText() throws IOException {
+        assertEquals("Words were found in empty text", 0, tokenize("").length);
+    }
+}
@@ -0,0 +1,95 @@
+package utilities;
+
+import java.util.List;
+
+/**
+ * This class represents a self-balancing Binary Search Tree using the AVL
+ * scheme. After every insertion the heights of the two subtrees of any node
+ * differ by at most one, so adding and searching cost O(log n) no matter in
+ * which order the elements arrive (sorted word lists included).
+ *
+ * It shares its nodes, iterators and serialized form with {@link BSTree} and
+ * can be used wherever a BSTree is expected.
+ *
+ * @param <E> The type of elements held in this AVLTree.
+ */
+
+public class AVLTree<E extends Comparable<? super E>> extends BSTree<E> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs an empty AVL tree.
+     */
+
+    public AVLTree() {
+        super();
+    }
+
+    /**
+     * Constructs an AVL tree holding elements that are already in order. The
+     * tree is built perfectly balanced in linear time, which satisfies the
+     * AVL invariant without any rotation.
+     *
+     * @param sorted The elements, in strictly increasing order.
+     * @throws IllegalArgumentException if the elements are out of order or repeated.
+     * @throws NullPointerException if an element is null.
+     */
+
+    public AVLTree(List<? extends E> sorted) throws IllegalArgumentException, NullPointerException {
+        super(sorted);
+    }
+
+    /**
+     * Rotates the subtree of the given node if the heights of its children
+     * differ by more than one. The node's height is already up to date, and
+     * the rotations update the nodes they move.
+     *
+     * @param node The root of the subtree to check.
+     * @return The root of the subtree after rebalancing.
+     */
+
+    @Override
+    protected BSTreeNode<E> rebalance(BSTreeNode<E> node) {
+        int balance = height(node.getLeft()) - height(node.getRight());
+        if (balance > 1) {
+            if (height(node.getLeft().getLeft()) < height(node.getLeft().getRight())) {
+                node.setLeft(rotateLeft(node.getLeft()));
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.getRight().getRight()) < height(node.getRight().getLeft())) {
+                node.setRight(rotateRight(node.getRight()));
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private BSTreeNode<E> rotateRight(BSTreeNode<E> node) {
+        BSTreeNode<E> pivot = node.getLeft();
+        node.setLeft(pivot.getRight());
+        pivot.setRight(node);
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private BSTreeNode<E> rotateLeft(BSTreeNode<E> node) {
+        BSTreeNode<E> pivot = node.getRight();
+        node.setRight(pivot.getLeft());
+        pivot.setLeft(node);
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private void update(BSTreeNode<E> node) {
+        node.update();
+    }
+
+    private int height(BSTreeNode<E> node) {
+        return BSTreeNode.height(node);
+    }
+}
@@ -1,7 +1,16 @@
 package utilities;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Stack;
+import java.util.Spliterator;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import exceptions.TreeException;
 
 
@@ -16,8 +25,14 @@ import exceptions.TreeException;
 public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
 
     private static final long serialVersionUID = 1L;
-    private BSTreeNode<E> root;
-    private int size;
+    protected BSTreeNode<E> root;
+    protected int size;
+
+    /**
+     * Scratch buffer holding the nodes visited by the last descent, reused
+     * between insertions so that retracing does not need recursion.
+     */
+    private transient BSTreeNode<E>[] path;
 
     /**
      * Constructs an empty Binary Search Tree.
@@ -27,6 +42,35 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
         root = null;
         size = 0;
     }
+
+    /**
+     * Constructs a tree holding elements that are already in order, such as
+     * the words of a saved repository. The tree is built directly in its
+     * final, perfectly balanced shape, in linear time and without recursion,
+     * rather than by adding the elements one at a time.
+     *
+     * @param sorted The elements, in strictly increasing order.
+     * @throws IllegalArgumentException if the elements are out of order or repeated.
+     * @throws NullPointerException if an element is null.
+     */
+
+    public BSTree(List<? extends E> sorted) throws IllegalArgumentException, NullPointerException {
+        root = build(sorted);
+        size = sorted.size();
+    }
+
+    /**
+     * Constructs a tree over existing nodes, such as a read-only view of a
+     * version of another tree.
+     *
+     * @param root The root node of the tree.
+     * @param size The number of nodes below and including the root.
+     */
+
+    BSTree(BSTreeNode<E> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
     
     /**
      * Retrieves the root node of the tree.
@@ -44,14 +88,26 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
     }
     
     /**
-     * Calculates the height of the tree.
+     * Returns the height of the tree, which is kept on the root node and
+     * updated along the path of every insertion and removal.
      *
      * @return The height of the tree.
      */
 
     @Override
     public int getHeight() {
-        return root == null ? 0 : root.getHeight();
+        return BSTreeNode.height(root);
+    }
+
+    /**
+     * Measures the shape of the tree, such as the depth of its nodes, for
+     * monitoring how well balanced the index is. Every node is visited.
+     *
+     * @return The shape statistics of the tree.
+     */
+
+    public TreeShape shape() {
+        return TreeShape.of(root);
     }
     
     /**
@@ -123,6 +179,206 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
         return null;
     }
     
+    /**
+     * Returns the smallest element in the tree.
+     *
+     * @return The first element in order, or null if the tree is empty.
+     */
+
+    public E first() {
+        BSTreeNode<E> current = root;
+        if (current == null) {
+            return null;
+        }
+        while (current.getLeft() != null) {
+            current = current.getLeft();
+        }
+        return current.getElement();
+    }
+
+    /**
+     * Returns the largest element in the tree.
+     *
+     * @return The last element in order, or null if the tree is empty.
+     */
+
+    public E last() {
+        BSTreeNode<E> current = root;
+        if (current == null) {
+            return null;
+        }
+        while (current.getRight() != null) {
+            current = current.getRight();
+        }
+        return current.getElement();
+    }
+
+    /**
+     * Returns the largest element less than or equal to the given one.
+     *
+     * @param entry The element to compare against.
+     * @return The floor of the element, or null if there is none.
+     */
+
+    public E floor(E entry) {
+        E floor = null;
+        BSTreeNode<E> current = root;
+        while (current != null) {
+            int comparison = current.getElement().compareTo(entry);
+            if (comparison == 0) {
+                return current.getElement();
+            }
+            if (comparison < 0) {
+                floor = current.getElement();
+                current = current.getRight();
+            } else {
+                current = current.getLeft();
+            }
+        }
+        return floor;
+    }
+
+    /**
+     * Returns the smallest element greater than or equal to the given one.
+     *
+     * @param entry The element to compare against.
+     * @return The ceiling of the element, or null if there is none.
+     */
+
+    public E ceiling(E entry) {
+        E ceiling = null;
+        BSTreeNode<E> current = root;
+        while (current != null) {
+            int comparison = current.getElement().compareTo(entry);
+            if (comparison == 0) {
+                return current.getElement();
+            }
+            if (comparison > 0) {
+                ceiling = current.getElement();
+                current = current.getLeft();
+            } else {
+                current = current.getRight();
+            }
+        }
+        return ceiling;
+    }
+
+    /**
+     * Returns an iterator over the elements between two bounds, in order.
+     *
+     * @param from The smallest element to return, or null for no lower bound.
+     * @param to   The largest element to return, or null for no upper bound.
+     * @return An iterator over the elements from {@code from} to {@code to}, inclusive.
+     */
+
+    public utilities.Iterator<E> rangeIterator(E from, E to) {
+        return rangeIterator(element -> from != null && element.compareTo(from) < 0 ? -1
+                : to != null && element.compareTo(to) > 0 ? 1 : 0);
+    }
+
+    /**
+     * Returns an iterator over a contiguous run of elements, in order, such
+     * as the words sharing a prefix. Only the nodes on the paths to the ends
+     * of the run and the nodes inside it are visited, so the iteration costs
+     * O(log n + k) on a balanced tree for a run of k elements.
+     *
+     * @param position Places an element relative to the run: negative if it
+     *                 comes before the run, zero if inside, positive if after.
+     * @return An iterator over the elements inside the run.
+     */
+
+    public utilities.Iterator<E> rangeIterator(ToIntFunction<? super E> position) {
+        return new utilities.Iterator<E>() {
+            Deque<BSTreeNode<E>> stack = new ArrayDeque<>();
+            {
+                pushLowerBound(root);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty() && position.applyAsInt(stack.peek().getElement()) <= 0;
+            }
+
+            @Override
+            public E next() throws NoSuchElementException {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more elements in iteration.");
+                }
+                BSTreeNode<E> node = stack.pop();
+                pushLowerBound(node.getRight());
+                return node.getElement();
+            }
+
+            /**
+             * Descends towards the start of the run, stacking the nodes that
+             * are not before it so they are returned on the way back up.
+             */
+            private void pushLowerBound(BSTreeNode<E> node) {
+                while (node != null) {
+                    if (position.applyAsInt(node.getElement()) < 0) {
+                        node = node.getRight();
+                    } else {
+                        stack.push(node);
+                        node = node.getLeft();
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Counts the elements less than the given one, which is the position the
+     * element has, or would have, in order.
+     *
+     * @param entry The element to compare against.
+     * @return The number of smaller elements in the tree.
+     */
+
+    public int rank(E entry) {
+        int rank = 0;
+        BSTreeNode<E> current = root;
+        while (current != null) {
+            int comparison = current.getElement().compareTo(entry);
+            if (comparison == 0) {
+                return rank + BSTreeNode.size(current.getLeft());
+            }
+            if (comparison < 0) {
+                rank += BSTreeNode.size(current.getLeft()) + 1;
+                current = current.getRight();
+            } else {
+                current = current.getLeft();
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the element at a position in order.
+     *
+     * @param index The position of the element, from 0 to size() - 1.
+     * @return The element at that position.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+
+    public E select(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No element at index " + index + ".");
+        }
+        BSTreeNode<E> current = root;
+        while (true) {
+            int leftSize = BSTreeNode.size(current.getLeft());
+            if (index == leftSize) {
+                return current.getElement();
+            }
+            if (index < leftSize) {
+                current = current.getLeft();
+            } else {
+                index -= leftSize + 1;
+                current = current.getRight();
+            }
+        }
+    }
+
     /**
      * Adds a new element to the tree.
      *
@@ -136,37 +392,272 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
         if (newEntry == null) {
             throw new NullPointerException("Cannot add null to the tree.");
         }
-        if (root == null) {
-            root = new BSTreeNode<>(newEntry, null, null);
-            size++;
-            return true;
+        int depth = 0;
+        int comparison = 0;
+        BSTreeNode<E> current = root;
+        while (current != null) {
+            comparison = newEntry.compareTo(current.getElement());
+            if (comparison == 0) {
+                clearPath(depth);
+                return false;
+            }
+            pushPath(depth++, current);
+            current = comparison < 0 ? current.getLeft() : current.getRight();
+        }
+        attach(depth, comparison < 0, new BSTreeNode<>(newEntry));
+        return true;
+    }
+
+    /**
+     * Looks up the element matching a key and adds a new one built from the
+     * key if none exists. The tree is descended once either way, and nothing
+     * is allocated when the key is already present.
+     *
+     * @param key        The key to look up.
+     * @param comparator Compares an element of the tree against the key, returning
+     *                   a negative, zero or positive value like compareTo.
+     * @param factory    Builds the element to add when the key is missing.
+     * @param <K>        The type of the key.
+     * @return The element already in the tree, or the newly added one.
+     * @throws NullPointerException if the factory returns null.
+     */
+    public <K> E computeIfAbsent(K key, ToIntBiFunction<? super E, ? super K> comparator,
+                                 Function<? super K, ? extends E> factory) throws NullPointerException {
+        int depth = 0;
+        int comparison = 0;
+        BSTreeNode<E> current = root;
+        while (current != null) {
+            comparison = comparator.applyAsInt(current.getElement(), key);
+            if (comparison == 0) {
+                clearPath(depth);
+                return current.getElement();
+            }
+            pushPath(depth++, current);
+            current = comparison > 0 ? current.getLeft() : current.getRight();
+        }
+        E newEntry = factory.apply(key);
+        if (newEntry == null) {
+            clearPath(depth);
+            throw new NullPointerException("Cannot add null to the tree.");
+        }
+        attach(depth, comparison > 0, new BSTreeNode<>(newEntry));
+        return newEntry;
+    }
+
+    /**
+     * Removes an element from the tree. A node with two children takes the
+     * element of its in-order successor, whose node is unlinked instead, so
+     * at most one node leaves the tree. The descent path is then retraced
+     * like an insertion's.
+     *
+     * @param entry The element to be removed.
+     * @return true if the element was found and removed, false otherwise.
+     * @throws NullPointerException if the entry is null.
+     */
+
+    @Override
+    public boolean remove(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException("Cannot remove null from the tree.");
+        }
+        int depth = 0;
+        BSTreeNode<E> current = root;
+        while (current != null) {
+            int comparison = entry.compareTo(current.getElement());
+            if (comparison == 0) {
+                break;
+            }
+            pushPath(depth++, current);
+            current = comparison < 0 ? current.getLeft() : current.getRight();
+        }
+        if (current == null) {
+            clearPath(depth);
+            return false;
+        }
+
+        if (current.getLeft() != null && current.getRight() != null) {
+            BSTreeNode<E> target = current;
+            pushPath(depth++, current);
+            current = current.getRight();
+            while (current.getLeft() != null) {
+                pushPath(depth++, current);
+                current = current.getLeft();
+            }
+            target.setElement(current.getElement());
+        }
+
+        BSTreeNode<E> child = current.getLeft() != null ? current.getLeft() : current.getRight();
+        if (depth == 0) {
+            root = child;
+        } else if (path[depth - 1].getLeft() == current) {
+            path[depth - 1].setLeft(child);
         } else {
-            return addHelper(newEntry, root);
+            path[depth - 1].setRight(child);
         }
+        size--;
+        retrace(depth);
+        return true;
     }
 
-    private boolean addHelper(E newEntry, BSTreeNode<E> node) {
-        int comparison = newEntry.compareTo(node.getElement());
-        if (comparison < 0) {
-            if (node.getLeft() == null) {
-                node.setLeft(new BSTreeNode<>(newEntry));
-                size++;
-                return true;
+    /**
+     * Links a new leaf below the last node of the recorded descent path and
+     * retraces the path back to the root.
+     *
+     * @param depth  The number of nodes recorded on the path.
+     * @param isLeft true to link the leaf as the left child of its parent.
+     * @param node   The new leaf.
+     */
+    private void attach(int depth, boolean isLeft, BSTreeNode<E> node) {
+        if (depth == 0) {
+            root = node;
+        } else if (isLeft) {
+            path[depth - 1].setLeft(node);
+        } else {
+            path[depth - 1].setRight(node);
+        }
+        size++;
+        retrace(depth);
+    }
+
+    /**
+     * Builds a perfectly balanced tree over a sorted list. The middle element
+     * of every range becomes the root of its subtree; the ranges are visited
+     * in order using an explicit stack, which the balanced shape keeps to a
+     * logarithmic depth, so the elements are read once from first to last.
+     *
+     * @param sorted The elements, in strictly increasing order.
+     * @return The root of the new tree, or null if the list is empty.
+     */
+    private BSTreeNode<E> build(List<? extends E> sorted) {
+        java.util.Iterator<? extends E> elements = sorted.iterator();
+        int capacity = 2;
+        for (int n = sorted.size(); n > 0; n >>>= 1) {
+            capacity++;
+        }
+        int[] low = new int[capacity];
+        int[] high = new int[capacity];
+        int[] state = new int[capacity];
+        BSTreeNode<E>[] nodes = newNodeArray(capacity);
+
+        BSTreeNode<E> built = null;
+        E previous = null;
+        int top = 0;
+        high[0] = sorted.size();
+        while (top >= 0) {
+            int mid = (low[top] + high[top]) >>> 1;
+            if (low[top] >= high[top]) {
+                built = null;
+                top--;
+            } else if (state[top] == 0) {
+                state[top] = 1;
+                top++;
+                low[top] = low[top - 1];
+                high[top] = mid;
+                state[top] = 0;
+            } else if (state[top] == 1) {
+                E element = elements.next();
+                if (element == null) {
+                    throw new NullPointerException("Cannot add null to the tree.");
+                }
+                if (previous != null && previous.compareTo(element) >= 0) {
+                    throw new IllegalArgumentException("The elements are not in strictly increasing order.");
+                }
+                previous = element;
+                nodes[top] = new BSTreeNode<>(element, built, null);
+                state[top] = 2;
+                top++;
+                low[top] = mid + 1;
+                high[top] = high[top - 1];
+                state[top] = 0;
             } else {
-                return addHelper(newEntry, node.getLeft());
+                BSTreeNode<E> node = nodes[top];
+                node.setRight(built);
+                node.update();
+                nodes[top] = null;
+                built = node;
+                top--;
             }
-        } else if (comparison > 0) {
-            if (node.getRight() == null) {
-                node.setRight(new BSTreeNode<>(newEntry));
-                size++;
-                return true;
-            } else {
-                return addHelper(newEntry, node.getRight());
+        }
+        return built;
+    }
+
+    /**
+     * Records a node at the given depth of the current descent path.
+     *
+     * @param depth The depth of the node, 0 being the root.
+     * @param node  The node visited at that depth.
+     */
+    private void pushPath(int depth, BSTreeNode<E> node) {
+        if (path == null) {
+            path = newNodeArray(32);
+        } else if (depth == path.length) {
+            path = Arrays.copyOf(path, depth * 2);
+        }
+        path[depth] = node;
+    }
+
+    /**
+     * Forgets the nodes of a descent that changed nothing, so the path does
+     * not keep them, or the elements they hold, reachable after they leave
+     * the tree.
+     *
+     * @param depth The number of nodes recorded on the path.
+     */
+    private void clearPath(int depth) {
+        for (int i = 0; i < depth; i++) {
+            path[i] = null;
+        }
+    }
+
+    /**
+     * Creates an array of nodes, which Java cannot create for a generic type directly.
+     *
+     * @param length The length of the array.
+     * @return An empty array of nodes.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E extends Comparable<? super E>> BSTreeNode<E>[] newNodeArray(int length) {
+        return (BSTreeNode<E>[]) new BSTreeNode<?>[length];
+    }
+
+    /**
+     * Walks the recorded descent path from the deepest node back to the root
+     * after an insertion or a removal, updating the height and size of every
+     * ancestor, giving it the chance to rebalance and relinking any subtree
+     * whose root changed.
+     *
+     * @param depth The number of nodes recorded on the path.
+     */
+    private void retrace(int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            BSTreeNode<E> node = path[i];
+            node.update();
+            BSTreeNode<E> balanced = rebalance(node);
+            if (balanced != node) {
+                if (i == 0) {
+                    root = balanced;
+                } else if (path[i - 1].getLeft() == node) {
+                    path[i - 1].setLeft(balanced);
+                } else {
+                    path[i - 1].setRight(balanced);
+                }
             }
-        } else {
-            return false;
+            path[i] = null;
         }
     }
+
+    /**
+     * Restores the shape invariant of the subtree rooted at the given node
+     * after one of its descendants was added or removed. A plain BST keeps no invariant,
+     * so the node is returned unchanged; balanced subclasses rotate here.
+     *
+     * @param node The root of the subtree to check.
+     * @return The root of the subtree after rebalancing.
+     */
+    protected BSTreeNode<E> rebalance(BSTreeNode<E> node) {
+        return node;
+    }
+
     /**
      * Returns an iterator for traversing the tree in in-order.
      *
@@ -175,12 +666,83 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
 
     @Override
     public utilities.Iterator<E> inorderIterator() {
-        return new utilities.Iterator<E>() {
-            Stack<BSTreeNode<E>> stack = new Stack<>();
-            {
-                pushLeftSubtree(root, stack);
+        Deque<BSTreeNode<E>> stack = new ArrayDeque<>();
+        pushLeftSubtree(root, stack);
+        return inorderIterator(stack);
+    }
+
+    /**
+     * Returns an iterator for traversing the tree in in-order, starting at a
+     * position. The start is found by descending once, so pages of a large
+     * tree can be read without walking the elements before them.
+     *
+     * @param index The position of the first element returned, from 0 to size().
+     * @return An iterator for in-order traversal from the given position.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+
+    public utilities.Iterator<E> inorderIterator(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("No element at index " + index + ".");
+        }
+        Deque<BSTreeNode<E>> stack = new ArrayDeque<>();
+        BSTreeNode<E> current = root;
+        while (current != null) {
+            int leftSize = BSTreeNode.size(current.getLeft());
+            if (index <= leftSize) {
+                stack.push(current);
+                if (index == leftSize) {
+                    break;
+                }
+                current = current.getLeft();
+            } else {
+                index -= leftSize + 1;
+                current = current.getRight();
             }
+        }
+        return inorderIterator(stack);
+    }
 
+    /**
+     * Returns a spliterator over the elements in order. It splits at the
+     * middle position of its range, so parallel streams divide the tree into
+     * parts of exactly known size.
+     *
+     * @return A spliterator over the elements of the tree.
+     */
+
+    public Spliterator<E> spliterator() {
+        return new TreeSpliterator<>(this, 0, size);
+    }
+
+    /**
+     * Returns a sequential stream of the elements in order.
+     *
+     * @return A stream over the elements of the tree.
+     */
+
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel stream of the elements, for work such as statistics
+     * over every word of a large index. The tree must not be changed while
+     * the stream runs.
+     *
+     * @return A parallel stream over the elements of the tree.
+     */
+
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Continues an in-order traversal from a stack holding the next node on
+     * top and, below it, the ancestors still to be returned.
+     */
+    private utilities.Iterator<E> inorderIterator(Deque<BSTreeNode<E>> stack) {
+        return new utilities.Iterator<E>() {
             @Override
             public boolean hasNext() {
                 return !stack.isEmpty();
@@ -198,7 +760,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
         };
     }
 
-    private void pushLeftSubtree(BSTreeNode<E> node, Stack<BSTreeNode<E>> stack) {
+    private void pushLeftSubtree(BSTreeNode<E> node, Deque<BSTreeNode<E>> stack) {
         while (node != null) {
             stack.push(node);
             node = node.getLeft();
@@ -209,7 +771,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
     @Override
     public utilities.Iterator<E> preorderIterator() {
         return new utilities.Iterator<E>() {
-            Stack<BSTreeNode<E>> stack = new Stack<>();
+            Deque<BSTreeNode<E>> stack = new ArrayDeque<>();
             {
                 if (root != null) {
                     stack.push(root);
@@ -236,7 +798,9 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
     
 
     /**
-     * Returns an iterator for traversing the tree in post-order.
+     * Returns an iterator for traversing the tree in post-order. The stack
+     * holds the path from the root to the next node, so elements are found
+     * as they are asked for rather than all at once.
      *
      * @return An iterator for post-order traversal.
      */
@@ -244,23 +808,14 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
     @Override
     public utilities.Iterator<E> postorderIterator() {
         return new utilities.Iterator<E>() {
-            Stack<BSTreeNode<E>> stack = new Stack<>();
-            Stack<BSTreeNode<E>> output = new Stack<>();
+            Deque<BSTreeNode<E>> stack = new ArrayDeque<>();
             {
-                if (root != null) {
-                    stack.push(root);
-                }
-                while (!stack.isEmpty()) {
-                    BSTreeNode<E> current = stack.pop();
-                    output.push(current);
-                    if (current.getLeft() != null) stack.push(current.getLeft());
-                    if (current.getRight() != null) stack.push(current.getRight());
-                }
+                pushFirstLeaf(root);
             }
 
             @Override
             public boolean hasNext() {
-                return !output.isEmpty();
+                return !stack.isEmpty();
             }
 
             @Override
@@ -268,7 +823,23 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
                 if (!hasNext()) {
                     throw new NoSuchElementException("No more elements in iteration.");
                 }
-                return output.pop().getElement();
+                BSTreeNode<E> current = stack.pop();
+                BSTreeNode<E> parent = stack.peek();
+                if (parent != null && parent.getLeft() == current) {
+                    pushFirstLeaf(parent.getRight());
+                }
+                return current.getElement();
+            }
+
+            /**
+             * Descends to the first node of a subtree in post-order, stacking
+             * the path to it; left children are preferred over right ones.
+             */
+            private void pushFirstLeaf(BSTreeNode<E> node) {
+                while (node != null) {
+                    stack.push(node);
+                    node = node.getLeft() != null ? node.getLeft() : node.getRight();
+                }
             }
         };
     }
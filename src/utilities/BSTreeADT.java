@@ -80,6 +80,15 @@ public interface BSTreeADT<E extends Comparable<? super E>> extends	Serializable
 	 */
 	public boolean add(E newEntry) throws NullPointerException;
 	
+	/**
+	 * Removes an element from the tree, keeping the remaining elements in
+	 * their natural order.
+	 * @param entry the element being removed from the tree
+	 * @return a boolean true if the element was found and removed else false
+	 * @throws NullPointerException if the element being removed is null
+	 */
+	public boolean remove(E entry) throws NullPointerException;
+	
 	/**
 	 * Generates an in-order iteration over the contents of the tree. Elements
 	 * are in their natural order.
@@ -1,6 +1,8 @@
 
 package utilities;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 /**
@@ -15,6 +17,18 @@ public class BSTreeNode<E extends Comparable<? super E>> implements Serializable
     private E element;
     private BSTreeNode<E> left, right;
 
+    /**
+     * Height of the subtree rooted at this node, kept up to date by the
+     * owning tree so that its height is known without a walk.
+     */
+    private int cachedHeight = 1;
+
+    /**
+     * Number of nodes in the subtree rooted at this node, kept up to date by
+     * the owning tree so that elements can be found by position.
+     */
+    private int subtreeSize = 1;
+
     /**
      * Constructs an empty BSTreeNode with no data and no child nodes.
      */
@@ -153,7 +167,9 @@ public class BSTreeNode<E extends Comparable<? super E>> implements Serializable
     }
 
     /**
-     * Computes the height of the subtree rooted at this node.
+     * Computes the height of the subtree rooted at this node by visiting
+     * every node below it. Trees keep the height of each node up to date
+     * and report it without this walk.
      *
      * @return The height of the subtree.
      */
@@ -162,4 +178,61 @@ public class BSTreeNode<E extends Comparable<? super E>> implements Serializable
         int rightHeight = right != null ? right.getHeight() : 0;
         return 1 + Math.max(leftHeight, rightHeight);
     }
+
+    /**
+     * Retrieves the subtree height last recorded for this node by its tree.
+     *
+     * @return The cached height of the subtree.
+     */
+    int getCachedHeight() {
+        return cachedHeight;
+    }
+
+    /**
+     * Retrieves the number of nodes in the subtree rooted at this node.
+     *
+     * @return The size of the subtree.
+     */
+    int getSubtreeSize() {
+        return subtreeSize;
+    }
+
+    /**
+     * Recomputes the cached height and the size of the subtree rooted at this
+     * node from the values recorded for its children.
+     */
+    void update() {
+        cachedHeight = 1 + Math.max(height(left), height(right));
+        subtreeSize = 1 + size(left) + size(right);
+    }
+
+    /**
+     * Returns the height of a subtree, which is zero for a missing child.
+     *
+     * @param node The root of the subtree, or null.
+     * @return The cached height of the subtree.
+     */
+    static int height(BSTreeNode<?> node) {
+        return node == null ? 0 : node.cachedHeight;
+    }
+
+    /**
+     * Returns the size of a subtree, which is zero for a missing child.
+     *
+     * @param node The root of the subtree, or null.
+     * @return The number of nodes in the subtree.
+     */
+    static int size(BSTreeNode<?> node) {
+        return node == null ? 0 : node.subtreeSize;
+    }
+
+    /**
+     * Restores the cached height and subtree size of nodes serialized before
+     * they were recorded. The children have been read by the time this runs,
+     * so their values are already known.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        update();
+    }
 }
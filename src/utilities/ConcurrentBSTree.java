@@ -0,0 +1,178 @@
+package utilities;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import exceptions.TreeException;
+
+/**
+ * This class represents a Binary Search Tree that many threads can read and
+ * write at once, such as the index of a long-running service that ingests
+ * files while answering lookups.
+ *
+ * The tree is held as a {@link PersistentBSTree} whose nodes are never
+ * changed. An add builds the next version, copying only the nodes on the
+ * path to the new leaf, and publishes it with a single compare-and-set,
+ * retrying if another writer got there first. Readers take the current
+ * version and work on it without locks, so searches and iterators never
+ * block or are blocked by writers, and an iterator sees the tree exactly as
+ * it was when created.
+ *
+ * The nodes returned by getRoot and search belong to a published version of
+ * the tree and must not be modified.
+ *
+ * @param <E> The type of elements held in this ConcurrentBSTree.
+ */
+
+public class ConcurrentBSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The current version of the tree. Versions are never modified once published.
+     */
+    private final AtomicReference<PersistentBSTree<E>> current = new AtomicReference<>(new PersistentBSTree<>());
+
+    /**
+     * Constructs an empty concurrent tree.
+     */
+
+    public ConcurrentBSTree() {
+    }
+
+    /**
+     * Returns the current version of the tree, in constant time, for reports
+     * that need a consistent view while writers continue.
+     *
+     * @return A snapshot of the tree.
+     */
+
+    public PersistentBSTree<E> snapshot() {
+        return current.get().snapshot();
+    }
+
+    @Override
+    public BSTreeNode<E> getRoot() throws TreeException {
+        return current.get().getRoot();
+    }
+
+    @Override
+    public int getHeight() {
+        return current.get().getHeight();
+    }
+
+    /**
+     * Measures the shape of the current version of the tree.
+     *
+     * @return The shape statistics of the tree.
+     */
+
+    public TreeShape shape() {
+        return current.get().shape();
+    }
+
+    @Override
+    public int size() {
+        return current.get().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        current.set(new PersistentBSTree<>());
+    }
+
+    @Override
+    public boolean contains(E entry) throws TreeException {
+        return search(entry) != null;
+    }
+
+    /**
+     * Searches the current version of the tree without taking any lock.
+     *
+     * @param entry The element to be searched for.
+     * @return The node containing the element, or null if not found.
+     * @throws TreeException if the tree is empty.
+     */
+
+    @Override
+    public BSTreeNode<E> search(E entry) throws TreeException {
+        return current.get().search(entry);
+    }
+
+    /**
+     * Adds a new element by publishing a new version of the tree that shares
+     * every node off the path to the new leaf with the current one.
+     *
+     * @param newEntry The element to be added.
+     * @return true if the element is added, false if it was already present.
+     * @throws NullPointerException if the new entry is null.
+     */
+
+    @Override
+    public boolean add(E newEntry) throws NullPointerException {
+        while (true) {
+            PersistentBSTree<E> version = current.get();
+            PersistentBSTree<E> next = version.plus(newEntry);
+            if (next == version) {
+                return false;
+            }
+            if (current.compareAndSet(version, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes an element by publishing a new version of the tree without it.
+     *
+     * @param entry The element to be removed.
+     * @return true if the element was found and removed, false otherwise.
+     * @throws NullPointerException if the entry is null.
+     */
+
+    @Override
+    public boolean remove(E entry) throws NullPointerException {
+        while (true) {
+            PersistentBSTree<E> version = current.get();
+            PersistentBSTree<E> next = version.minus(entry);
+            if (next == version) {
+                return false;
+            }
+            if (current.compareAndSet(version, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a stream of the elements in order, read from the current
+     * version of the tree, so writers can continue while it runs.
+     *
+     * @param parallel true for a parallel stream.
+     * @return A stream over the elements of the tree.
+     */
+
+    public Stream<E> stream(boolean parallel) {
+        return current.get().stream(parallel);
+    }
+
+    @Override
+    public Iterator<E> inorderIterator() {
+        return current.get().inorderIterator();
+    }
+
+    @Override
+    public Iterator<E> preorderIterator() {
+        return current.get().preorderIterator();
+    }
+
+    @Override
+    public Iterator<E> postorderIterator() {
+        return current.get().postorderIterator();
+    }
+}
@@ -0,0 +1,325 @@
+package utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
+
+/**
+ * This class represents a read-only snapshot of a Binary Search Tree stored
+ * in a single array in Eytzinger (breadth-first) order: the root is at index
+ * 1 and the children of the node at index k are at 2k and 2k + 1. There are
+ * no node objects and no child pointers, so a search reads one contiguous
+ * array whose top levels stay in cache, rather than a chain of scattered
+ * nodes.
+ *
+ * It is meant for snapshots that are searched far more often than they
+ * change, such as a repository loaded for lookups; it is built once from
+ * sorted elements or from a tree and cannot be modified, so it offers
+ * lookups and traversals rather than the operations of a BSTreeADT.
+ *
+ * Given a prefix function, such as the cached prefix of a Word, the tree
+ * also keeps the prefix of every element in a parallel array of longs. A
+ * search then compares prefixes read from that array and only reads an
+ * element when its prefix equals the one searched for.
+ *
+ * @param <E> The type of elements held in this EytzingerTree.
+ */
+
+public class EytzingerTree<E extends Comparable<? super E>> {
+
+    private final E[] elements;
+    private final long[] prefixes;
+    private final ToLongFunction<? super E> prefix;
+    private final int size;
+
+    /**
+     * Constructs a tree holding elements that are already in order.
+     *
+     * @param sorted The elements, in strictly increasing order.
+     * @throws IllegalArgumentException if the elements are out of order or repeated.
+     * @throws NullPointerException if an element is null.
+     */
+
+    public EytzingerTree(List<? extends E> sorted) throws IllegalArgumentException, NullPointerException {
+        this(sorted, null);
+    }
+
+    /**
+     * Constructs a tree holding elements that are already in order, searched
+     * by their prefixes. Compared as unsigned longs, the prefixes of two
+     * elements must be in the order of the elements whenever they differ.
+     *
+     * @param sorted The elements, in strictly increasing order.
+     * @param prefix Computes the prefix of an element, or null to compare the elements alone.
+     * @throws IllegalArgumentException if the elements are out of order or repeated.
+     * @throws NullPointerException if an element is null.
+     */
+
+    public EytzingerTree(List<? extends E> sorted, ToLongFunction<? super E> prefix)
+            throws IllegalArgumentException, NullPointerException {
+        size = sorted.size();
+        elements = newArray(size + 1);
+        this.prefix = prefix;
+        prefixes = prefix == null ? null : new long[size + 1];
+        E previous = null;
+        int index = first();
+        for (E element : sorted) {
+            if (element == null) {
+                throw new NullPointerException("Cannot add null to the tree.");
+            }
+            if (previous != null && previous.compareTo(element) >= 0) {
+                throw new IllegalArgumentException("The elements are not in strictly increasing order.");
+            }
+            elements[index] = element;
+            if (prefixes != null) {
+                prefixes[index] = prefix.applyAsLong(element);
+            }
+            previous = element;
+            index = successor(index);
+        }
+    }
+
+    /**
+     * Constructs a tree holding the elements of another tree.
+     *
+     * @param tree The tree to copy.
+     */
+
+    public EytzingerTree(BSTreeADT<E> tree) {
+        this(contents(tree), null);
+    }
+
+    /**
+     * Constructs a tree holding the elements of another tree, searched by
+     * their prefixes.
+     *
+     * @param tree   The tree to copy.
+     * @param prefix Computes the prefix of an element, as for the constructor from a list.
+     */
+
+    public EytzingerTree(BSTreeADT<E> tree, ToLongFunction<? super E> prefix) {
+        this(contents(tree), prefix);
+    }
+
+    private static <E extends Comparable<? super E>> List<E> contents(BSTreeADT<E> tree) {
+        List<E> contents = new ArrayList<>(tree.size());
+        Iterator<E> iterator = tree.inorderIterator();
+        while (iterator.hasNext()) {
+            contents.add(iterator.next());
+        }
+        return contents;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E[] newArray(int length) {
+        return (E[]) new Comparable<?>[length];
+    }
+
+    /**
+     * Returns the height of the tree, which is complete, so it is known
+     * from the size alone.
+     *
+     * @return The height of the tree.
+     */
+
+    public int getHeight() {
+        return 32 - Integer.numberOfLeadingZeros(size);
+    }
+
+    /**
+     * The number of elements in the tree.
+     *
+     * @return The number of elements.
+     */
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the tree holds no elements.
+     *
+     * @return true if the tree is empty.
+     */
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks whether an element equal to the given one is in the tree.
+     *
+     * @param entry The element to be searched for.
+     * @return true if the element is in the tree.
+     */
+
+    public boolean contains(E entry) {
+        return find(entry) != null;
+    }
+
+    /**
+     * Finds the element equal to the given one without allocating anything.
+     * When the tree keeps prefixes, the prefix of the entry is computed once
+     * and each level is decided by the prefix array unless the prefixes are
+     * equal.
+     *
+     * @param entry The element to be searched for.
+     * @return The element in the tree, or null if not found.
+     */
+
+    public E find(E entry) {
+        long key = prefixes == null ? 0 : prefix.applyAsLong(entry);
+        int index = 1;
+        while (index <= size) {
+            int comparison = prefixes != null && prefixes[index] != key
+                    ? Long.compareUnsigned(prefixes[index], key)
+                    : elements[index].compareTo(entry);
+            if (comparison == 0) {
+                return elements[index];
+            }
+            index = 2 * index + (comparison < 0 ? 1 : 0);
+        }
+        return null;
+    }
+
+    /**
+     * Returns an iterator for traversing the tree in in-order, moving from
+     * each index to its in-order successor without any stack.
+     *
+     * @return An iterator for in-order traversal.
+     */
+
+    public Iterator<E> inorderIterator() {
+        return new Iterator<E>() {
+            private int index = first();
+
+            @Override
+            public boolean hasNext() {
+                return index != 0;
+            }
+
+            @Override
+            public E next() throws NoSuchElementException {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more elements in iteration.");
+                }
+                E element = elements[index];
+                index = successor(index);
+                return element;
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator for traversing the tree in pre-order.
+     *
+     * @return An iterator for pre-order traversal.
+     */
+
+    public Iterator<E> preorderIterator() {
+        return new Iterator<E>() {
+            private int index = size == 0 ? 0 : 1;
+
+            @Override
+            public boolean hasNext() {
+                return index != 0;
+            }
+
+            @Override
+            public E next() throws NoSuchElementException {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more elements in iteration.");
+                }
+                E element = elements[index];
+                if (2 * index <= size) {
+                    index = 2 * index;
+                } else {
+                    // Climb until a left child with a right sibling is found.
+                    while (index > 1 && ((index & 1) == 1 || index + 1 > size)) {
+                        index >>>= 1;
+                    }
+                    index = index > 1 ? index + 1 : 0;
+                }
+                return element;
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator for traversing the tree in post-order.
+     *
+     * @return An iterator for post-order traversal.
+     */
+
+    public Iterator<E> postorderIterator() {
+        return new Iterator<E>() {
+            private int index = size == 0 ? 0 : firstLeaf(1);
+
+            @Override
+            public boolean hasNext() {
+                return index != 0;
+            }
+
+            @Override
+            public E next() throws NoSuchElementException {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more elements in iteration.");
+                }
+                E element = elements[index];
+                if (index == 1) {
+                    index = 0;
+                } else if ((index & 1) == 0 && index + 1 <= size) {
+                    index = firstLeaf(index + 1);
+                } else {
+                    index >>>= 1;
+                }
+                return element;
+            }
+        };
+    }
+
+    /**
+     * Returns the index of the first node in in-order, or 0 for an empty tree.
+     */
+    private int first() {
+        int index = size == 0 ? 0 : 1;
+        while (2 * index <= size && index != 0) {
+            index *= 2;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of the in-order successor of a node, or 0 if it is last.
+     */
+    private int successor(int index) {
+        if (2 * index + 1 <= size) {
+            index = 2 * index + 1;
+            while (2 * index <= size) {
+                index *= 2;
+            }
+            return index;
+        }
+        while ((index & 1) == 1) {
+            index >>>= 1;
+        }
+        return index >>> 1;
+    }
+
+    /**
+     * Returns the index of the first node in post-order of the subtree at an
+     * index: its deepest leftmost leaf, preferring left children.
+     */
+    private int firstLeaf(int index) {
+        while (true) {
+            if (2 * index <= size) {
+                index *= 2;
+            } else if (2 * index + 1 <= size) {
+                index = 2 * index + 1;
+            } else {
+                return index;
+            }
+        }
+    }
+}
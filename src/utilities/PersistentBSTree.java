@@ -0,0 +1,316 @@
+package utilities;
+
+import java.util.stream.Stream;
+
+import exceptions.TreeException;
+
+/**
+ * This class represents a persistent Binary Search Tree: its nodes are never
+ * modified once created. Adding or removing an element copies only the
+ * nodes on the path to the change, rebalancing as an AVL tree, and shares
+ * every other node with the previous version of the tree.
+ *
+ * Because versions share their nodes, {@link #snapshot()} takes constant
+ * time, and a snapshot can be read or iterated while the tree it was taken
+ * from keeps changing. Versions nobody refers to any more are reclaimed by
+ * the garbage collector like any other object.
+ *
+ * Only the structure of the tree is persistent; an element changed in place
+ * after a snapshot is changed in the snapshot as well. The nodes returned
+ * by getRoot and search are shared between versions and must not be modified.
+ *
+ * @param <E> The type of elements held in this PersistentBSTree.
+ */
+
+public class PersistentBSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
+
+    private static final long serialVersionUID = 1L;
+    private BSTreeNode<E> root;
+    private int size;
+
+    /**
+     * Constructs an empty persistent tree.
+     */
+
+    public PersistentBSTree() {
+        this(null, 0);
+    }
+
+    private PersistentBSTree(BSTreeNode<E> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns a tree holding the current elements, in constant time. Later
+     * changes to this tree do not affect the snapshot and the other way round.
+     *
+     * @return A snapshot of the tree.
+     */
+
+    public PersistentBSTree<E> snapshot() {
+        return new PersistentBSTree<>(root, size);
+    }
+
+    /**
+     * Returns a new version of the tree with an element added, leaving this
+     * version unchanged.
+     *
+     * @param newEntry The element to be added.
+     * @return The new version, or this tree if the element was already present.
+     * @throws NullPointerException if the new entry is null.
+     */
+
+    public PersistentBSTree<E> plus(E newEntry) throws NullPointerException {
+        if (newEntry == null) {
+            throw new NullPointerException("Cannot add null to the tree.");
+        }
+        BSTreeNode<E> newRoot = insert(root, newEntry);
+        return newRoot == root ? this : new PersistentBSTree<>(newRoot, size + 1);
+    }
+
+    /**
+     * Returns a new version of the tree with an element removed, leaving this
+     * version unchanged.
+     *
+     * @param entry The element to be removed.
+     * @return The new version, or this tree if the element was not present.
+     * @throws NullPointerException if the entry is null.
+     */
+
+    public PersistentBSTree<E> minus(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException("Cannot remove null from the tree.");
+        }
+        BSTreeNode<E> newRoot = delete(root, entry);
+        return newRoot == root ? this : new PersistentBSTree<>(newRoot, size - 1);
+    }
+
+    @Override
+    public BSTreeNode<E> getRoot() throws TreeException {
+        if (root == null) {
+            throw new TreeException("The root is empty.");
+        }
+        return root;
+    }
+
+    @Override
+    public int getHeight() {
+        return height(root);
+    }
+
+    /**
+     * Measures the shape of the tree, such as the depth of its nodes.
+     *
+     * @return The shape statistics of the tree.
+     */
+
+    public TreeShape shape() {
+        return TreeShape.of(root);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    @Override
+    public boolean contains(E entry) throws TreeException {
+        return search(entry) != null;
+    }
+
+    @Override
+    public BSTreeNode<E> search(E entry) throws TreeException {
+        if (isEmpty()) {
+            throw new TreeException("The tree is empty.");
+        }
+        BSTreeNode<E> node = root;
+        while (node != null) {
+            int comparison = node.getElement().compareTo(entry);
+            if (comparison == 0) {
+                return node;
+            }
+            node = comparison > 0 ? node.getLeft() : node.getRight();
+        }
+        return null;
+    }
+
+    /**
+     * Adds a new element by moving this tree to a new version; snapshots
+     * taken earlier keep the old one.
+     *
+     * @param newEntry The element to be added.
+     * @return true if the element is added, false if it was already present.
+     * @throws NullPointerException if the new entry is null.
+     */
+
+    @Override
+    public boolean add(E newEntry) throws NullPointerException {
+        PersistentBSTree<E> next = plus(newEntry);
+        if (next == this) {
+            return false;
+        }
+        root = next.root;
+        size = next.size;
+        return true;
+    }
+
+    /**
+     * Removes an element by moving this tree to a new version; snapshots
+     * taken earlier keep the old one.
+     *
+     * @param entry The element to be removed.
+     * @return true if the element was found and removed, false otherwise.
+     * @throws NullPointerException if the entry is null.
+     */
+
+    @Override
+    public boolean remove(E entry) throws NullPointerException {
+        PersistentBSTree<E> next = minus(entry);
+        if (next == this) {
+            return false;
+        }
+        root = next.root;
+        size = next.size;
+        return true;
+    }
+
+    @Override
+    public Iterator<E> inorderIterator() {
+        return view().inorderIterator();
+    }
+
+    @Override
+    public Iterator<E> preorderIterator() {
+        return view().preorderIterator();
+    }
+
+    @Override
+    public Iterator<E> postorderIterator() {
+        return view().postorderIterator();
+    }
+
+    /**
+     * Returns a stream of the elements in order. The stream reads the version
+     * current when it was created, so changes made meanwhile are not seen.
+     *
+     * @param parallel true for a parallel stream.
+     * @return A stream over the elements of the tree.
+     */
+
+    public Stream<E> stream(boolean parallel) {
+        return parallel ? view().parallelStream() : view().stream();
+    }
+
+    /**
+     * Wraps the current version in a BSTree so its iterators can walk it.
+     * The nodes are never modified, so the view stays consistent.
+     */
+    private BSTree<E> view() {
+        return new BSTree<>(root, size);
+    }
+
+    /**
+     * Returns the root of a copy of the subtree with the element added, or the
+     * same root if the element is already present.
+     */
+    private BSTreeNode<E> insert(BSTreeNode<E> node, E entry) {
+        if (node == null) {
+            return node(entry, null, null);
+        }
+        int comparison = entry.compareTo(node.getElement());
+        if (comparison < 0) {
+            BSTreeNode<E> left = insert(node.getLeft(), entry);
+            return left == node.getLeft() ? node : balance(node.getElement(), left, node.getRight());
+        } else if (comparison > 0) {
+            BSTreeNode<E> right = insert(node.getRight(), entry);
+            return right == node.getRight() ? node : balance(node.getElement(), node.getLeft(), right);
+        }
+        return node;
+    }
+
+    /**
+     * Returns the root of a copy of the subtree with the element removed, or
+     * the same root if the element is not present.
+     */
+    private BSTreeNode<E> delete(BSTreeNode<E> node, E entry) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = entry.compareTo(node.getElement());
+        if (comparison < 0) {
+            BSTreeNode<E> left = delete(node.getLeft(), entry);
+            return left == node.getLeft() ? node : balance(node.getElement(), left, node.getRight());
+        } else if (comparison > 0) {
+            BSTreeNode<E> right = delete(node.getRight(), entry);
+            return right == node.getRight() ? node : balance(node.getElement(), node.getLeft(), right);
+        }
+        if (node.getLeft() == null) {
+            return node.getRight();
+        }
+        if (node.getRight() == null) {
+            return node.getLeft();
+        }
+        BSTreeNode<E> successor = node.getRight();
+        while (successor.getLeft() != null) {
+            successor = successor.getLeft();
+        }
+        return balance(successor.getElement(), node.getLeft(), deleteFirst(node.getRight()));
+    }
+
+    /**
+     * Returns the root of a copy of the subtree without its smallest element.
+     */
+    private BSTreeNode<E> deleteFirst(BSTreeNode<E> node) {
+        if (node.getLeft() == null) {
+            return node.getRight();
+        }
+        return balance(node.getElement(), deleteFirst(node.getLeft()), node.getRight());
+    }
+
+    /**
+     * Builds a node from an element and two balanced subtrees whose heights
+     * differ by at most two, rotating with new nodes where needed.
+     */
+    private BSTreeNode<E> balance(E element, BSTreeNode<E> left, BSTreeNode<E> right) {
+        int balance = height(left) - height(right);
+        if (balance > 1) {
+            if (height(left.getLeft()) >= height(left.getRight())) {
+                return node(left.getElement(), left.getLeft(), node(element, left.getRight(), right));
+            }
+            BSTreeNode<E> pivot = left.getRight();
+            return node(pivot.getElement(), node(left.getElement(), left.getLeft(), pivot.getLeft()),
+                    node(element, pivot.getRight(), right));
+        }
+        if (balance < -1) {
+            if (height(right.getRight()) >= height(right.getLeft())) {
+                return node(right.getElement(), node(element, left, right.getLeft()), right.getRight());
+            }
+            BSTreeNode<E> pivot = right.getLeft();
+            return node(pivot.getElement(), node(element, left, pivot.getLeft()),
+                    node(right.getElement(), pivot.getRight(), right.getRight()));
+        }
+        return node(element, left, right);
+    }
+
+    private BSTreeNode<E> node(E element, BSTreeNode<E> left, BSTreeNode<E> right) {
+        BSTreeNode<E> node = new BSTreeNode<>(element, left, right);
+        node.update();
+        return node;
+    }
+
+    private int height(BSTreeNode<E> node) {
+        return BSTreeNode.height(node);
+    }
+}
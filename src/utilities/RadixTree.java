@@ -0,0 +1,286 @@
+package utilities;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * This class represents a radix tree mapping text keys to values, such as
+ * words to their locations. Keys sharing a prefix share the nodes of that
+ * prefix, and a chain of nodes with a single child is collapsed into one
+ * node whose label holds the whole run of characters, so a key is found by
+ * reading each of its characters once instead of comparing it with whole
+ * keys on the way down.
+ *
+ * The children of a node are kept in arrays sorted by their first
+ * character, which grow through the sizes of an adaptive radix tree (4, 16
+ * and 48, then doubling), so most nodes stay small. Small nodes are scanned
+ * and larger ones binary-searched.
+ *
+ * Visiting the nodes depth-first, children in order of their first
+ * character, yields the keys in the order of String.compareTo.
+ *
+ * @param <V> The type of values held in this RadixTree.
+ */
+
+public class RadixTree<V> {
+
+    /**
+     * Nodes with at most this many children are scanned rather than binary-searched.
+     */
+    private static final int SCAN_LIMIT = 16;
+
+    private static final char[] EMPTY = new char[0];
+
+    private Node<V> root = new Node<>(EMPTY);
+    private int size;
+
+    /**
+     * Constructs an empty radix tree.
+     */
+
+    public RadixTree() {
+    }
+
+    /**
+     * The number of keys in the tree.
+     *
+     * @return The number of keys.
+     */
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the tree holds no keys.
+     *
+     * @return true if the tree is empty.
+     */
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every key from the tree.
+     */
+
+    public void clear() {
+        root = new Node<>(EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Finds the value of a key.
+     *
+     * @param key The key to find.
+     * @return The value of the key, or null if it is not in the tree.
+     */
+
+    public V get(CharSequence key) {
+        Node<V> node = root;
+        int index = 0;
+        int length = key.length();
+        while (true) {
+            if (index == length) {
+                return node.value;
+            }
+            node = node.child(key.charAt(index));
+            if (node == null) {
+                return null;
+            }
+            char[] label = node.label;
+            if (length - index < label.length) {
+                return null;
+            }
+            for (char c : label) {
+                if (key.charAt(index++) != c) {
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether a key is in the tree.
+     *
+     * @param key The key to find.
+     * @return true if the key is in the tree.
+     */
+
+    public boolean containsKey(CharSequence key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns the value of a key, adding one made by the factory if the key is
+     * not yet in the tree. The factory is only called for a new key, so a key
+     * read into a reused buffer needs to be copied only then.
+     *
+     * @param key     The key to find or add.
+     * @param factory Makes the value of a new key from the key.
+     * @return The value of the key, existing or new.
+     * @throws NullPointerException if the factory returns null.
+     */
+
+    public V computeIfAbsent(CharSequence key, Function<? super CharSequence, ? extends V> factory)
+            throws NullPointerException {
+        Node<V> node = root;
+        int index = 0;
+        int length = key.length();
+        while (index < length) {
+            Node<V> child = node.child(key.charAt(index));
+            if (child == null) {
+                child = new Node<>(copy(key, index, length));
+                node.addChild(child);
+                return assign(child, key, factory);
+            }
+            char[] label = child.label;
+            int matched = 1;
+            while (matched < label.length && index + matched < length && key.charAt(index + matched) == label[matched]) {
+                matched++;
+            }
+            if (matched < label.length) {
+                // Split the child where the key leaves its label.
+                Node<V> middle = new Node<>(Arrays.copyOf(label, matched));
+                child.label = Arrays.copyOfRange(label, matched, label.length);
+                middle.addChild(child);
+                node.replaceChild(middle);
+                child = middle;
+            }
+            node = child;
+            index += matched;
+        }
+        return node.value != null ? node.value : assign(node, key, factory);
+    }
+
+    private V assign(Node<V> node, CharSequence key, Function<? super CharSequence, ? extends V> factory) {
+        V value = factory.apply(key);
+        if (value == null) {
+            throw new NullPointerException("Cannot add null to the tree.");
+        }
+        node.value = value;
+        size++;
+        return value;
+    }
+
+    private static char[] copy(CharSequence key, int from, int to) {
+        char[] chars = new char[to - from];
+        for (int i = from; i < to; i++) {
+            chars[i - from] = key.charAt(i);
+        }
+        return chars;
+    }
+
+    /**
+     * Returns an iterator over the values in the order of their keys. The
+     * nodes still to be visited are kept on an explicit stack.
+     *
+     * @return An iterator for in-order traversal.
+     */
+
+    public Iterator<V> inorderIterator() {
+        return new Iterator<V>() {
+            private final Deque<Node<V>> stack = new ArrayDeque<>();
+            private V next;
+
+            {
+                stack.push(root);
+                advance();
+            }
+
+            private void advance() {
+                next = null;
+                while (next == null && !stack.isEmpty()) {
+                    Node<V> node = stack.pop();
+                    for (int i = node.childCount - 1; i >= 0; i--) {
+                        stack.push(node.children[i]);
+                    }
+                    next = node.value;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public V next() throws NoSuchElementException {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more elements in iteration.");
+                }
+                V value = next;
+                advance();
+                return value;
+            }
+        };
+    }
+
+    /**
+     * A node of the tree: the run of characters leading to it from its
+     * parent, the value of the key ending at it if any, and its children in
+     * order of their first character.
+     */
+    private static final class Node<V> {
+        private char[] label;
+        private V value;
+        private char[] firsts;
+        private Node<V>[] children;
+        private int childCount;
+
+        private Node(char[] label) {
+            this.label = label;
+        }
+
+        private Node<V> child(char first) {
+            int index = indexOf(first);
+            return index >= 0 ? children[index] : null;
+        }
+
+        /**
+         * Finds the position of the child starting with a character, or
+         * -(insertion point) - 1 if there is none.
+         */
+        private int indexOf(char first) {
+            if (childCount <= SCAN_LIMIT) {
+                for (int i = 0; i < childCount; i++) {
+                    if (firsts[i] >= first) {
+                        return firsts[i] == first ? i : -i - 1;
+                    }
+                }
+                return -childCount - 1;
+            }
+            return Arrays.binarySearch(firsts, 0, childCount, first);
+        }
+
+        private void addChild(Node<V> child) {
+            int index = -indexOf(child.label[0]) - 1;
+            if (children == null) {
+                firsts = new char[4];
+                children = newNodeArray(4);
+            } else if (childCount == children.length) {
+                int capacity = childCount < 16 ? 16 : childCount < 48 ? 48 : childCount * 2;
+                firsts = Arrays.copyOf(firsts, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(firsts, index, firsts, index + 1, childCount - index);
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+            firsts[index] = child.label[0];
+            children[index] = child;
+            childCount++;
+        }
+
+        private void replaceChild(Node<V> child) {
+            children[indexOf(child.label[0])] = child;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V> Node<V>[] newNodeArray(int length) {
+            return (Node<V>[]) new Node<?>[length];
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package utilities;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Locale;
+
+/**
+ * Describes the shape of a tree: how many nodes sit at each level and how
+ * deep they are on average. A balanced tree of n nodes has a maximum depth
+ * close to log2(n); a maximum depth far above that, or an average depth
+ * close to it, shows that the tree has degenerated towards a list.
+ *
+ * Depths are counted from 0 at the root.
+ */
+public class TreeShape {
+
+    private final int[] nodesPerLevel;
+    private final int size;
+    private final long totalDepth;
+
+    private TreeShape(int[] nodesPerLevel, int size, long totalDepth) {
+        this.nodesPerLevel = nodesPerLevel;
+        this.size = size;
+        this.totalDepth = totalDepth;
+    }
+
+    /**
+     * Measures the tree below a node, one level at a time.
+     *
+     * @param root The root of the tree, or null for an empty tree.
+     * @return The shape of the tree.
+     */
+    static TreeShape of(BSTreeNode<?> root) {
+        int[] nodesPerLevel = new int[Math.max(1, BSTreeNode.height(root))];
+        int levels = 0;
+        int size = 0;
+        long totalDepth = 0;
+        Deque<BSTreeNode<?>> level = new ArrayDeque<>();
+        if (root != null) {
+            level.add(root);
+        }
+        while (!level.isEmpty()) {
+            int count = level.size();
+            if (levels == nodesPerLevel.length) {
+                nodesPerLevel = Arrays.copyOf(nodesPerLevel, levels * 2);
+            }
+            nodesPerLevel[levels] = count;
+            size += count;
+            totalDepth += (long) count * levels;
+            for (int i = 0; i < count; i++) {
+                BSTreeNode<?> node = level.remove();
+                if (node.getLeft() != null) {
+                    level.add(node.getLeft());
+                }
+                if (node.getRight() != null) {
+                    level.add(node.getRight());
+                }
+            }
+            levels++;
+        }
+        return new TreeShape(Arrays.copyOf(nodesPerLevel, levels), size, totalDepth);
+    }
+
+    /**
+     * Returns the number of nodes in the tree.
+     *
+     * @return The number of nodes.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the depth of the deepest node, which is one less than the height.
+     *
+     * @return The maximum depth, or -1 for an empty tree.
+     */
+    public int getMaxDepth() {
+        return nodesPerLevel.length - 1;
+    }
+
+    /**
+     * Returns the average depth of the nodes, which is the average number of
+     * comparisons, less one, needed to find an element in the tree.
+     *
+     * @return The average depth, or 0 for an empty tree.
+     */
+    public double getAverageDepth() {
+        return size == 0 ? 0 : (double) totalDepth / size;
+    }
+
+    /**
+     * Returns the number of nodes at each level, starting with the root.
+     *
+     * @return The node counts, one per level.
+     */
+    public int[] getNodesPerLevel() {
+        return nodesPerLevel.clone();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "size=%d maxDepth=%d averageDepth=%.2f nodesPerLevel=%s",
+                size, getMaxDepth(), getAverageDepth(), Arrays.toString(nodesPerLevel));
+    }
+}
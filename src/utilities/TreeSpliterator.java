@@ -0,0 +1,103 @@
+package utilities;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Splits the in-order sequence of a tree for parallel streams. A spliterator
+ * covers a range of positions in the sequence; it splits by handing the
+ * first half of its range to a new spliterator, and starts reading by
+ * descending to the first position of its range. The subtree sizes kept
+ * on the nodes make both cost O(log n), and the size of every part is exact.
+ *
+ * The tree must not be changed while the spliterator is in use.
+ *
+ * @param <E> The type of elements held in the tree.
+ */
+class TreeSpliterator<E extends Comparable<? super E>> implements Spliterator<E> {
+
+    /**
+     * Ranges smaller than this are not split, since reading them is cheaper
+     * than handing them to another thread.
+     */
+    private static final int MINIMUM_SPLIT = 1 << 10;
+
+    private final BSTree<E> tree;
+    private int from;
+    private final int to;
+    private utilities.Iterator<E> iterator;
+
+    /**
+     * Creates a spliterator over a range of positions of a tree.
+     *
+     * @param tree The tree to read.
+     * @param from The first position, inclusive.
+     * @param to   The last position, exclusive.
+     */
+    TreeSpliterator(BSTree<E> tree, int from, int to) {
+        this.tree = tree;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super E> action) {
+        if (from >= to) {
+            return false;
+        }
+        if (iterator == null) {
+            iterator = tree.inorderIterator(from);
+        }
+        from++;
+        action.accept(iterator.next());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super E> action) {
+        if (from >= to) {
+            return;
+        }
+        if (iterator == null) {
+            iterator = tree.inorderIterator(from);
+        }
+        while (from < to) {
+            from++;
+            action.accept(iterator.next());
+        }
+    }
+
+    /**
+     * Splits off the first half of the range, unless reading has started or
+     * the range is too small to be worth splitting.
+     */
+    @Override
+    public Spliterator<E> trySplit() {
+        if (iterator != null || to - from < MINIMUM_SPLIT) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Spliterator<E> prefix = new TreeSpliterator<>(tree, from, mid);
+        from = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return to - from;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SORTED | DISTINCT | NONNULL | SIZED | SUBSIZED;
+    }
+
+    /**
+     * Returns null, as the elements are in their natural order.
+     */
+    @Override
+    public Comparator<? super E> getComparator() {
+        return null;
+    }
+}